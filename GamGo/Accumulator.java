@@ -0,0 +1,178 @@
+package GamGo;
+
+import java.util.Arrays;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Adds up the matches and scores of a search in primitive arrays indexed by
+ * document ID, so scoring a posting allocates nothing. Each thread reuses its
+ * own accumulator, grown to the largest document table it has searched, and
+ * only the documents a search touched are cleared afterwards. Search results
+ * are only created for documents that can still make it into the collector,
+ * see {@link #select(TopResults, DocumentTable, IntUnaryOperator)}. Merging
+ * postings reuses the same arrays, see {@link MergedPostings}.
+ */
+public class Accumulator {
+	/**
+	 * accumulator of each thread
+	 */
+	private static final ThreadLocal<Accumulator> LOCAL = ThreadLocal.withInitial(Accumulator::new);
+	/**
+	 * number of matches indexed by document ID
+	 */
+	private int[] counts;
+	/**
+	 * sum of the posting scores indexed by document ID
+	 */
+	private double[] scores;
+	/**
+	 * IDs of the documents with at least one match, in the order they were
+	 * first matched
+	 */
+	private int[] touched;
+	/**
+	 * number of touched documents
+	 */
+	private int size;
+	/**
+	 * whether the posting scores are added up, instead of only the matches
+	 */
+	private boolean scored;
+
+	/**
+	 * initialize new instance
+	 */
+	private Accumulator() {
+		this.counts = new int[0];
+		this.scores = new double[0];
+		this.touched = new int[0];
+		this.size = 0;
+	}
+
+	/**
+	 * Returns the accumulator of the current thread, emptied and large enough for
+	 * the given number of document IDs. Anything left over from a search that
+	 * failed is cleared first.
+	 *
+	 * @param documents number of document IDs
+	 * @param scored    whether posting scores are added up
+	 * @return the accumulator
+	 */
+	public static Accumulator get(int documents, boolean scored) {
+		Accumulator accumulator = LOCAL.get();
+		accumulator.clear();
+		if (accumulator.counts.length < documents) {
+			int grown = Math.max(documents, accumulator.counts.length * 3 / 2);
+			accumulator.counts = new int[grown];
+			accumulator.scores = new double[grown];
+			accumulator.touched = new int[grown];
+		}
+		accumulator.scored = scored;
+		return accumulator;
+	}
+
+	/**
+	 * adds the matches of a document
+	 *
+	 * @param document document ID
+	 * @param count    number of matches
+	 */
+	public void add(int document, int count) {
+		if (counts[document] == 0) {
+			touched[size++] = document;
+		}
+		counts[document] += count;
+	}
+
+	/**
+	 * adds the matches and the score of a posting
+	 *
+	 * @param document document ID
+	 * @param count    number of matches
+	 * @param score    score of the posting
+	 */
+	public void add(int document, int count, double score) {
+		add(document, count);
+		scores[document] += score;
+	}
+
+	/**
+	 * Adds every touched document that can still be kept by the collector, then
+	 * empties the accumulator. A document scoring below the worst kept result is
+	 * skipped without creating a search result for it.
+	 *
+	 * @param results collector of the best results
+	 * @param table   table used to resolve documents
+	 * @param totals  word count of each document ID
+	 */
+	public void select(TopResults results, DocumentTable table, IntUnaryOperator totals) {
+		try {
+			double threshold = results.threshold();
+			for (int i = 0; i < size; i++) {
+				int document = touched[i];
+				int total = totals.applyAsInt(document);
+				double score = scored ? scores[document] : (double) counts[document] / total;
+				if (score >= threshold) {
+					results.add(new InvertedIndex.SearchResult(table, document, total, counts[document], score));
+					threshold = results.threshold();
+				}
+			}
+		} finally {
+			clear();
+		}
+	}
+
+	/**
+	 * returns the IDs of the touched documents in increasing order
+	 *
+	 * @return new sorted array of document IDs
+	 */
+	public int[] documents() {
+		int[] documents = Arrays.copyOf(touched, size);
+		Arrays.sort(documents);
+		return documents;
+	}
+
+	/**
+	 * returns the number of matches of a document
+	 *
+	 * @param document document ID
+	 * @return number of matches, or 0 if not touched
+	 */
+	public int count(int document) {
+		return counts[document];
+	}
+
+	/**
+	 * returns the added up score of a document
+	 *
+	 * @param document document ID
+	 * @return sum of the posting scores, or 0 if not touched or not scored
+	 */
+	public double score(int document) {
+		return scored ? scores[document] : 0;
+	}
+
+	/**
+	 * empties the accumulator, clearing only the touched documents
+	 */
+	public void clear() {
+		for (int i = 0; i < size; i++) {
+			counts[touched[i]] = 0;
+		}
+		if (scored) {
+			for (int i = 0; i < size; i++) {
+				scores[touched[i]] = 0;
+			}
+		}
+		size = 0;
+	}
+
+	/**
+	 * to string method
+	 */
+	@Override
+	public String toString() {
+		return "Accumulator[capacity=" + counts.length + ", touched=" + size + ", scored=" + scored + "]";
+	}
+}
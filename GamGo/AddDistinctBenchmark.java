@@ -0,0 +1,87 @@
+package GamGo;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Times merging the indexes of single files with
+ * {@link InvertedIndex#addDistinct(InvertedIndex)}, the way the threaded text
+ * processor combines the local index of every file. The files are parsed once
+ * up front and the parsing is not timed. Each round merges them one after the
+ * other into a single index, then pairwise like a tree of merges. Only public
+ * methods are used, so the benchmark also runs against older versions of the
+ * index. Not used by {@link Driver}, run it with the directory of text files
+ * and an optional number of rounds:
+ *
+ * <pre>
+ * java GamGo.AddDistinctBenchmark input/text 5
+ * </pre>
+ */
+public class AddDistinctBenchmark {
+	/**
+	 * parses every file into its own index and times merging them
+	 *
+	 * @param args directory to index, followed by the number of rounds
+	 * @throws IOException if the input cannot be read
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length < 1) {
+			System.out.println("Usage: java GamGo.AddDistinctBenchmark <path> [rounds]");
+			return;
+		}
+		int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+		List<Path> files = TextProcessor.listFiles(Path.of(args[0]));
+		long positions = 0;
+		for (InvertedIndex local : parse(files)) {
+			positions += local.size();
+		}
+		System.out.println("files=" + files.size() + " positions=" + positions);
+
+		for (int round = 0; round < rounds; round++) {
+			List<InvertedIndex> locals = parse(files);
+			long start = System.nanoTime();
+			InvertedIndex single = new InvertedIndex();
+			for (InvertedIndex local : locals) {
+				single.addDistinct(local);
+			}
+			long sequential = System.nanoTime() - start;
+
+			locals = parse(files);
+			start = System.nanoTime();
+			while (locals.size() > 1) {
+				List<InvertedIndex> merged = new ArrayList<>();
+				for (int i = 0; i + 1 < locals.size(); i += 2) {
+					locals.get(i).addDistinct(locals.get(i + 1));
+					merged.add(locals.get(i));
+				}
+				if (locals.size() % 2 == 1) {
+					merged.add(locals.get(locals.size() - 1));
+				}
+				locals = merged;
+			}
+			long pairwise = System.nanoTime() - start;
+
+			System.out.printf("round %d: sequential %.2fs (%d positions), pairwise %.2fs (%d positions)%n", round + 1,
+					sequential / 1e9, single.size(), pairwise / 1e9, locals.isEmpty() ? 0 : locals.get(0).size());
+		}
+	}
+
+	/**
+	 * parses every file into its own index
+	 *
+	 * @param files files to parse
+	 * @return index of each file
+	 * @throws IOException if a file cannot be read
+	 */
+	private static List<InvertedIndex> parse(List<Path> files) throws IOException {
+		List<InvertedIndex> locals = new ArrayList<>();
+		for (Path file : files) {
+			InvertedIndex local = new InvertedIndex();
+			TextProcessor.processFile(file, local);
+			locals.add(local);
+		}
+		return locals;
+	}
+}
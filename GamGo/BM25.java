@@ -0,0 +1,69 @@
+package GamGo;
+
+/**
+ * Okapi BM25 scorer. Repeated occurrences of a word add less and less to the
+ * score, rare words weigh more than common ones, and long documents are scored
+ * lower than short ones with the same matches.
+ */
+public class BM25 implements Scorer {
+	/**
+	 * default term frequency saturation
+	 */
+	public static final double K1 = 1.2;
+	/**
+	 * default length normalization
+	 */
+	public static final double B = 0.75;
+	/**
+	 * term frequency saturation
+	 */
+	private final double k1;
+	/**
+	 * length normalization, from 0 for none to 1 for full
+	 */
+	private final double b;
+
+	/**
+	 * initialize new instance with the default parameters
+	 */
+	public BM25() {
+		this(K1, B);
+	}
+
+	/**
+	 * initialize new instance
+	 *
+	 * @param k1 term frequency saturation
+	 * @param b  length normalization, from 0 for none to 1 for full
+	 */
+	public BM25(double k1, double b) {
+		if (k1 < 0 || b < 0 || b > 1) {
+			throw new IllegalArgumentException("Invalid BM25 parameters: k1=" + k1 + ", b=" + b);
+		}
+		this.k1 = k1;
+		this.b = b;
+	}
+
+	@Override
+	public double weight(int documentFrequency, int documents) {
+		return Math.log(1 + (documents - documentFrequency + 0.5) / (documentFrequency + 0.5));
+	}
+
+	@Override
+	public double norm(int length, double averageLength) {
+		return averageLength > 0 ? k1 * (1 - b + b * length / averageLength) : k1;
+	}
+
+	@Override
+	public double score(int frequency, double weight, double norm) {
+		return weight * frequency * (k1 + 1) / (frequency + norm);
+	}
+
+	/**
+	 * to string method
+	 */
+	@Override
+	public String toString() {
+		return "BM25[k1=" + k1 + ", b=" + b + "]";
+	}
+}
@@ -0,0 +1,275 @@
+package GamGo;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+
+/**
+ * Document table that assigns every location (file path or URL) a dense integer
+ * ID exactly once, and keeps the word count for each document. Postings refer
+ * to documents by ID so the location string is stored a single time no matter
+ * how many words the document contains.
+ *
+ * Documents are deleted by marking their ID with a tombstone. The location is
+ * released, so adding it again assigns a new ID, while postings of the old ID
+ * are skipped by searches until they are purged by a compaction.
+ *
+ * The table keeps the number of live documents and their total word count as
+ * documents are added and deleted, so the average document length a scorer
+ * needs is read without visiting every document.
+ *
+ * This class is thread-safe, so locations can be resolved while search results
+ * are rendered even if the index is still being built. Word counts are read
+ * without locking: a segment is only published after the counts of its
+ * documents were added, so a search that sees the segment also sees them.
+ */
+public class DocumentTable {
+	/**
+	 * locations indexed by document ID
+	 */
+	private final ArrayList<String> locations;
+	/**
+	 * document ID for each location
+	 */
+	private final HashMap<String, Integer> ids;
+	/**
+	 * word count indexed by document ID, replaced when it grows
+	 */
+	private volatile int[] counts;
+	/**
+	 * number of documents that were not deleted
+	 */
+	private int live;
+	/**
+	 * total word count of the documents that were not deleted
+	 */
+	private long liveWords;
+	/**
+	 * IDs of deleted documents, replaced as a whole on every deletion so it can be
+	 * read without locking
+	 */
+	private volatile BitSet deleted;
+
+	/**
+	 * initialize new instance
+	 */
+	public DocumentTable() {
+		this.locations = new ArrayList<>();
+		this.ids = new HashMap<>();
+		this.counts = new int[16];
+		this.deleted = new BitSet();
+		this.live = 0;
+		this.liveWords = 0;
+	}
+
+	/**
+	 * Returns the ID for the location, assigning the next available ID if the
+	 * location has not been seen before
+	 *
+	 * @param location location to add
+	 * @return the document ID for the location
+	 */
+	public synchronized int add(String location) {
+		Integer id = ids.get(location);
+		if (id == null) {
+			id = locations.size();
+			locations.add(location);
+			ids.put(location, id);
+			if (id == counts.length) {
+				counts = Arrays.copyOf(counts, id * 2);
+			}
+			live++;
+		}
+		return id;
+	}
+
+	/**
+	 * adds a location under a new ID that is already deleted, such as when loading
+	 * a table that still holds tombstones
+	 *
+	 * @param location location to add
+	 * @return the new document ID
+	 */
+	public synchronized int addDeleted(String location) {
+		int id = locations.size();
+		locations.add(location);
+		if (id == counts.length) {
+			counts = Arrays.copyOf(counts, id * 2);
+		}
+		BitSet updated = (BitSet) deleted.clone();
+		updated.set(id);
+		deleted = updated;
+		return id;
+	}
+
+	/**
+	 * Adds every location from another document table to this one
+	 *
+	 * @param other the other document table
+	 * @return array mapping the other table's document IDs to IDs in this table,
+	 *         with -1 for documents deleted in the other table
+	 */
+	public int[] addAll(DocumentTable other) {
+		String[] otherLocations = other.getLocations();
+		int[] mapping = new int[otherLocations.length];
+		synchronized (this) {
+			for (int i = 0; i < otherLocations.length; i++) {
+				mapping[i] = other.isDeleted(i) ? -1 : add(otherLocations[i]);
+			}
+		}
+		return mapping;
+	}
+
+	/**
+	 * Deletes the documents with the given locations by marking their IDs with a
+	 * tombstone. Locations that are not in the table are ignored.
+	 *
+	 * @param removed locations to delete
+	 * @return the number of documents deleted
+	 */
+	public synchronized int delete(Collection<String> removed) {
+		BitSet updated = (BitSet) deleted.clone();
+		int count = 0;
+		for (String location : removed) {
+			Integer id = ids.remove(location);
+			if (id != null) {
+				updated.set(id);
+				count++;
+				live--;
+				liveWords -= counts[id];
+			}
+		}
+		if (count > 0) {
+			deleted = updated;
+		}
+		return count;
+	}
+
+	/**
+	 * checks if a document has been deleted
+	 *
+	 * @param id document ID
+	 * @return true if deleted
+	 */
+	public boolean isDeleted(int id) {
+		return deleted.get(id);
+	}
+
+	/**
+	 * checks if any document has been deleted
+	 *
+	 * @return true if there is a tombstone
+	 */
+	public boolean hasDeleted() {
+		return !deleted.isEmpty();
+	}
+
+	/**
+	 * returns the IDs of the deleted documents, which are never changed once
+	 * returned
+	 *
+	 * @return set of deleted document IDs
+	 */
+	BitSet getDeleted() {
+		return deleted;
+	}
+
+	/**
+	 * returns the number of deleted documents
+	 *
+	 * @return number of tombstones
+	 */
+	public int numDeleted() {
+		return deleted.cardinality();
+	}
+
+	/**
+	 * returns the document ID for a location
+	 *
+	 * @param location location to look up
+	 * @return the document ID, or -1 if the location is not in the table
+	 */
+	public synchronized int getId(String location) {
+		Integer id = ids.get(location);
+		return id == null ? -1 : id;
+	}
+
+	/**
+	 * returns the location for a document ID
+	 *
+	 * @param id document ID
+	 * @return the location
+	 */
+	public synchronized String getLocation(int id) {
+		return locations.get(id);
+	}
+
+	/**
+	 * returns a copy of all locations indexed by document ID
+	 *
+	 * @return array of locations
+	 */
+	public synchronized String[] getLocations() {
+		return locations.toArray(new String[0]);
+	}
+
+	/**
+	 * adds to the word count of a document
+	 *
+	 * @param id     document ID
+	 * @param amount amount to add
+	 */
+	public synchronized void addCount(int id, int amount) {
+		counts[id] += amount;
+		if (!deleted.get(id)) {
+			liveWords += amount;
+		}
+	}
+
+	/**
+	 * returns the word count of a document
+	 *
+	 * @param id document ID
+	 * @return the word count
+	 */
+	public int getCount(int id) {
+		return counts[id];
+	}
+
+	/**
+	 * returns the number of documents that were not deleted
+	 *
+	 * @return number of live documents
+	 */
+	public synchronized int numLive() {
+		return live;
+	}
+
+	/**
+	 * returns the average word count of the documents that were not deleted
+	 *
+	 * @return the average length, or 0 if there are no live documents
+	 */
+	public synchronized double getAverageLength() {
+		return live > 0 ? (double) liveWords / live : 0;
+	}
+
+	/**
+	 * returns the number of documents in the table
+	 *
+	 * @return number of documents
+	 */
+	public synchronized int size() {
+		return locations.size();
+	}
+
+	/**
+	 * to string method
+	 */
+	@Override
+	public synchronized String toString() {
+		return locations.toString();
+	}
+}
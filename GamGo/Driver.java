@@ -2,6 +2,7 @@ package GamGo;
 
 import java.io.IOException;
 import java.net.MalformedURLException;
+import java.nio.file.Files;
 import java.nio.file.Path;
 
 /**
@@ -19,20 +20,50 @@ public class Driver {
 		InvertedIndex index = null;
 		QueryProcessorInterface queryProcessor;
 		WorkQueue workqueue = null;
-		ThreadedInvertedIndex multithread = new ThreadedInvertedIndex();
+		IndexSnapshot loaded = null;
+		if (parser.hasFlag("-load")) {
+			Path path = parser.getPath("-load", Path.of("index.bin"));
+			try {
+				loaded = IndexSnapshot.load(path);
+			} catch (IOException e) {
+				System.out.println("Error loading index: " + e.getMessage());
+			}
+		}
+		int capacity = parser.getInteger("-cache", ResultCache.DEFAULT_CAPACITY);
+		ResultCache cache = new ResultCache(capacity < 1 ? ResultCache.DEFAULT_CAPACITY : capacity);
+		ThreadedInvertedIndex multithread = null;
+		boolean updating = parser.hasFlag("-text") && parser.hasFlag("-manifest");
 		if (parser.hasFlag("-threads") || parser.hasFlag("-html") || parser.hasFlag("-server")) {
 			int threadsArg = parser.getInteger("-threads", 5);
 			if (threadsArg < 1) {
 				threadsArg = 5;
 			}
 			workqueue = new WorkQueue(threadsArg);
+			if (loaded == null) {
+				multithread = new ThreadedInvertedIndex(workqueue);
+			} else if (updating) {
+				multithread = new ThreadedInvertedIndex(workqueue, loaded.getDocuments());
+				multithread.addSegment(loaded);
+			} else {
+				multithread = new ThreadedInvertedIndex(loaded);
+			}
 			index = multithread;
-			queryProcessor = new ThreadSafeQueryProcessor(multithread, workqueue);
+			queryProcessor = new ThreadSafeQueryProcessor(multithread, workqueue, cache);
 		} else {
-			index = new InvertedIndex();
-			queryProcessor = new QueryProcessor(index);
+			if (loaded == null) {
+				index = new InvertedIndex();
+			} else if (updating) {
+				index = new InvertedIndex(loaded.getDocuments());
+				index.addSegment(loaded);
+			} else {
+				index = new InvertedIndex(loaded);
+			}
+			queryProcessor = new QueryProcessor(index, cache);
 		}
-		processFlags(parser, index, queryProcessor, workqueue, multithread);
+		if (parser.hasFlag("-bm25")) {
+			index.setScorer(new BM25());
+		}
+		processFlags(parser, index, queryProcessor, workqueue, multithread, loaded != null);
 		if (workqueue != null) {
 			workqueue.join();
 		}
@@ -40,23 +71,52 @@ public class Driver {
 
 	/**
 	 * Processes command line args and executes appropriate actions based on the
-	 * specified flags
+	 * specified flags. A crawl together with -server runs in the background while
+	 * the server already answers searches from the segments published so far. The
+	 * index is frozen once it is complete, before the outputs that need every
+	 * document are written.
 	 * 
 	 * @param parser         the parsed command line arguments
 	 * @param index          for text processing and data storage
 	 * @param queryProcessor to handle query operations
 	 * @param workqueue      for managing multithreading
 	 * @param multithread    for the threaded inverted index
+	 * @param loaded         whether the index started from a loaded binary index
 	 */
 	private static void processFlags(ArgumentParser parser, InvertedIndex index, QueryProcessorInterface queryProcessor,
-			WorkQueue workqueue, ThreadedInvertedIndex multithread) {
-		WebCrawler webCrawl = null;
+			WorkQueue workqueue, ThreadedInvertedIndex multithread, boolean loaded) {
+		Manifest manifest = null;
+		Path manifestPath = null;
 		int crawlNum = parser.getInteger("-crawl", 1);
-		if (parser.hasFlag("-text")) {
+		if (index.isFrozen() && (parser.hasFlag("-text") || parser.hasFlag("-html"))) {
+			System.out.println("Index loaded from a binary file is read-only without -manifest, ignoring -text and -html");
+		} else if (parser.hasFlag("-text")) {
 			Path path = parser.getPath("-text");
 			try {
-				if (workqueue != null) {
-					ThreadedTextProcessor.process((ThreadedInvertedIndex) index, path, workqueue);
+				if (parser.hasFlag("-manifest")) {
+					manifestPath = parser.getPath("-manifest", Path.of("manifest.txt"));
+					Manifest updated;
+					if (loaded && Files.exists(manifestPath)) {
+						updated = Manifest.read(manifestPath);
+					} else {
+						if (Files.exists(manifestPath)) {
+							System.out.println("Ignoring manifest without -load, indexing every file");
+						}
+						updated = new Manifest();
+					}
+					if (workqueue != null) {
+						ThreadedTextProcessor.update((ThreadedInvertedIndex) index, path, updated, workqueue,
+								parser.hasFlag("-reduce"));
+					} else {
+						TextProcessor.update(index, path, updated);
+					}
+					manifest = updated;
+					if (!parser.hasFlag("-save")) {
+						System.out.println("Manifest is only written together with -save");
+					}
+				} else if (workqueue != null) {
+					ThreadedTextProcessor.process((ThreadedInvertedIndex) index, path, workqueue,
+							parser.hasFlag("-reduce"));
 				} else {
 					TextProcessor.process(index, path);
 				}
@@ -66,21 +126,31 @@ public class Driver {
 				System.out.println("interrupted exception while text flag: " + e.getMessage());
 			}
 		}
-		if (parser.hasFlag("-html")) {
-			try {
-				String input = parser.getString("-html");
-				webCrawl = new WebCrawler(multithread, workqueue, crawlNum, input);
-				webCrawl.processHTML();
-			} catch (NullPointerException e) {
-				System.err.println("Error processing html flag: " + e.getMessage());
-			} catch (MalformedURLException e) {
-				System.err.println("Malformed URI Exception: " + e.getMessage());
+		Thread crawler = null;
+		Thread server = null;
+		if (parser.hasFlag("-html") && !index.isFrozen()) {
+			if (parser.hasFlag("-server")) {
+				crawler = new Thread(() -> crawl(parser, multithread, workqueue, crawlNum));
+				crawler.start();
+				server = new Thread(() -> serve(parser, queryProcessor));
+				server.start();
+				try {
+					crawler.join();
+				} catch (InterruptedException e) {
+					System.out.println("interrupted exception while html flag: " + e.getMessage());
+					Thread.currentThread().interrupt();
+				}
+			} else {
+				crawl(parser, multithread, workqueue, crawlNum);
 			}
 		}
+		index.freeze();
 		if (parser.hasFlag("-query")) {
 			Path path = parser.getPath("-query");
 			try {
-				queryProcessor.processQuery(path, parser.hasFlag("-partial"));
+				int limit = parser.getInteger("-limit", TopResults.ALL);
+				queryProcessor.processQuery(path, parser.hasFlag("-partial"), parser.hasFlag("-and"),
+						limit < 1 ? TopResults.ALL : limit);
 			} catch (NullPointerException | IOException e) {
 				System.err.println("Error processing query flag: " + e.getMessage());
 			}
@@ -101,6 +171,23 @@ public class Driver {
 				System.out.println("Error writing index: " + e.getMessage());
 			}
 		}
+		if (parser.hasFlag("-save")) {
+			Path path = parser.getPath("-save", Path.of("index.bin"));
+			boolean saved = false;
+			try {
+				index.writeBinary(path);
+				saved = true;
+			} catch (IOException e) {
+				System.out.println("Error writing binary index: " + e.getMessage());
+			}
+			if (saved && manifest != null) {
+				try {
+					manifest.write(manifestPath);
+				} catch (IOException e) {
+					System.out.println("Error writing manifest: " + e.getMessage());
+				}
+			}
+		}
 		if (parser.hasFlag("-results")) {
 			Path path = parser.getPath("-results", Path.of("results.json"));
 			try {
@@ -109,14 +196,52 @@ public class Driver {
 				System.err.println("Error writing results: " + e.getMessage());
 			}
 		}
-		if (parser.hasFlag("-server")) {
-			int serverPort = parser.getInteger("-server", 8080);
-			HeaderServer headerServer = new HeaderServer(serverPort);
+		if (server != null) {
 			try {
-				headerServer.startServer(queryProcessor);
-			} catch (IOException e) {
-				System.out.println("server error" + e.getMessage());
+				server.join();
+			} catch (InterruptedException e) {
+				System.out.println("interrupted exception while server flag: " + e.getMessage());
+				Thread.currentThread().interrupt();
 			}
+		} else if (parser.hasFlag("-server")) {
+			serve(parser, queryProcessor);
+		}
+	}
+
+	/**
+	 * crawls the web starting from the seed URL and adds every page to the index
+	 *
+	 * @param parser      the parsed command line arguments
+	 * @param multithread the threaded inverted index to add pages to
+	 * @param workqueue   for managing multithreading
+	 * @param crawlNum    maximum number of pages to crawl
+	 */
+	private static void crawl(ArgumentParser parser, ThreadedInvertedIndex multithread, WorkQueue workqueue,
+			int crawlNum) {
+		try {
+			String input = parser.getString("-html");
+			WebCrawler webCrawl = new WebCrawler(multithread, workqueue, crawlNum, input, parser.hasFlag("-reduce"));
+			webCrawl.processHTML();
+		} catch (NullPointerException e) {
+			System.err.println("Error processing html flag: " + e.getMessage());
+		} catch (MalformedURLException e) {
+			System.err.println("Malformed URI Exception: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * starts the search server and blocks until it stops
+	 *
+	 * @param parser         the parsed command line arguments
+	 * @param queryProcessor to handle query operations
+	 */
+	private static void serve(ArgumentParser parser, QueryProcessorInterface queryProcessor) {
+		int serverPort = parser.getInteger("-server", 8080);
+		HeaderServer headerServer = new HeaderServer(serverPort);
+		try {
+			headerServer.startServer(queryProcessor);
+		} catch (IOException e) {
+			System.out.println("server error" + e.getMessage());
 		}
 	}
-}
\ No newline at end of file
+}
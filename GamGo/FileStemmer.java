@@ -1,5 +1,4 @@
 package GamGo;
-import static opennlp.tools.stemmer.snowball.SnowballStemmer.ALGORITHM.ENGLISH;
 
 import java.io.BufferedReader;
 import java.io.IOException;
@@ -13,8 +12,6 @@ import java.util.TreeSet;
 import java.util.regex.Pattern;
 
 import opennlp.tools.stemmer.Stemmer;
-import opennlp.tools.stemmer.snowball.SnowballStemmer;
-import opennlp.tools.stemmer.snowball.SnowballStemmer.ALGORITHM;
 
 /**
  * Utility class for parsing, cleaning, and stemming text and text files into
@@ -119,38 +116,35 @@ public class FileStemmer {
 	}
 
 	/**
-	 * Parses the line into a list of cleaned and stemmed words using the default
-	 * stemmer for English.
+	 * Parses the line into a list of cleaned and stemmed words using the shared
+	 * cache of English stems.
 	 *
 	 * @param line the line of words to parse and stem
 	 * @return a list of cleaned and stemmed words in parsed order
 	 *
-	 * @see SnowballStemmer#SnowballStemmer(ALGORITHM)
-	 * @see ALGORITHM#ENGLISH
+	 * @see StemCache#getShared()
 	 * @see #listStems(String, Stemmer)
 	 */
 	public static ArrayList<String> listStems(String line) {
-		Stemmer stemmer = new SnowballStemmer(ENGLISH);
-		return listStems(line, stemmer);
+		return listStems(line, StemCache.getShared());
 	}
 
 	/**
 	 * Reads a file line by line, parses each line into cleaned and stemmed words
-	 * using the default stemmer for English.
+	 * using the shared cache of English stems.
 	 *
 	 * @param input the input file to parse and stem
 	 * @return a list of stems from file in parsed order
 	 * @throws IOException if unable to read or parse file
 	 *
-	 * @see SnowballStemmer
-	 * @see ALGORITHM#ENGLISH
+	 * @see StemCache#getShared()
 	 * @see StandardCharsets#UTF_8
 	 * @see #listStems(String, Stemmer)
 	 */
 	public static ArrayList<String> listStems(Path input) throws IOException {
 		ArrayList<String> stems = new ArrayList<>();
 		try (BufferedReader reader = Files.newBufferedReader(input, StandardCharsets.UTF_8)) {
-			Stemmer stemmer = new SnowballStemmer(ENGLISH);
+			Stemmer stemmer = StemCache.getShared();
 			while (reader.ready()) {
 				String line = reader.readLine();
 				addStems(line, stemmer, stems);
@@ -178,34 +172,32 @@ public class FileStemmer {
 
 	/**
 	 * Parses the line into a set of unique, sorted, cleaned, and stemmed words
-	 * using the default stemmer for English.
+	 * using the shared cache of English stems.
 	 *
 	 * @param line the line of words to parse and stem
 	 * @return a sorted set of unique cleaned and stemmed words
 	 *
-	 * @see SnowballStemmer#SnowballStemmer(ALGORITHM)
-	 * @see ALGORITHM#ENGLISH
+	 * @see StemCache#getShared()
 	 * @see #uniqueStems(String, Stemmer)
 	 */
 	public static TreeSet<String> uniqueStems(String line) {
-		return uniqueStems(line, new SnowballStemmer(ENGLISH));
+		return uniqueStems(line, StemCache.getShared());
 	}
 
 	/**
 	 * Reads a file line by line, parses each line into a set of unique, sorted,
-	 * cleaned, and stemmed words using the default stemmer for English.
+	 * cleaned, and stemmed words using the shared cache of English stems.
 	 *
 	 * @param input the input file to parse and stem
 	 * @return a sorted set of unique cleaned and stemmed words from file
 	 * @throws IOException if unable to read or parse file
 	 *
-	 * @see SnowballStemmer
-	 * @see ALGORITHM#ENGLISH
+	 * @see StemCache#getShared()
 	 * @see StandardCharsets#UTF_8
 	 * @see #uniqueStems(String, Stemmer)
 	 */
 	public static TreeSet<String> uniqueStems(Path input) throws IOException {
-		return uniqueStems(input, new SnowballStemmer(ENGLISH));
+		return uniqueStems(input, StemCache.getShared());
 	}
 
 	/**
@@ -220,7 +212,6 @@ public class FileStemmer {
 	public static TreeSet<String> uniqueStems(Path input, Stemmer stemmer) throws IOException {
 		TreeSet<String> stems = new TreeSet<>();
 		try (BufferedReader reader = Files.newBufferedReader(input, StandardCharsets.UTF_8)) {
-			stemmer = new SnowballStemmer(ENGLISH);
 			while (reader.ready()) {
 				String line = reader.readLine();
 				addStems(line, stemmer, stems);
@@ -231,7 +222,7 @@ public class FileStemmer {
 
 	/**
 	 * Reads a file line by line, parses each line into unique, sorted, cleaned, and
-	 * stemmed words using the default stemmer for English, and adds the set of
+	 * stemmed words using the shared cache of English stems, and adds the set of
 	 * unique sorted stems to a list per line in the file.
 	 *
 	 * @param input the input file to parse and stem
@@ -239,14 +230,13 @@ public class FileStemmer {
 	 *         a single line of the input file
 	 * @throws IOException if unable to read or parse file
 	 *
-	 * @see SnowballStemmer
-	 * @see ALGORITHM#ENGLISH
+	 * @see StemCache#getShared()
 	 * @see StandardCharsets#UTF_8
 	 * @see #uniqueStems(String, Stemmer)
 	 */
 	public static ArrayList<TreeSet<String>> listUniqueStems(Path input) throws IOException {
 		ArrayList<TreeSet<String>> uniqueList = new ArrayList<>();
-		Stemmer stemmer = new SnowballStemmer(ALGORITHM.ENGLISH);
+		Stemmer stemmer = StemCache.getShared();
 		try (BufferedReader reader = Files.newBufferedReader(input, StandardCharsets.UTF_8)) {
 			String line;
 			while ((line = reader.readLine()) != null) {
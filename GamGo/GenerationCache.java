@@ -0,0 +1,242 @@
+package GamGo;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.function.Predicate;
+
+/**
+ * Bounded cache of values keyed by string, where every value has a weight. Once
+ * the total weight goes over the capacity the least recently used entries are
+ * evicted.
+ *
+ * Every entry is tagged with the generation of the index it was computed at,
+ * see {@link InvertedIndex#getGeneration()}. An entry of an older generation is
+ * stale and is treated as missing, so it is computed again and replaced the
+ * next time it is asked for, while the rest of the cache is left alone. The
+ * cache counts its hits, misses, stale entries and evictions. All methods are
+ * synchronized, so the cache can be shared between threads.
+ *
+ * @param <V> type of the cached values
+ */
+public abstract class GenerationCache<V> {
+	/**
+	 * cached entries, from least to most recently used
+	 */
+	private final LinkedHashMap<String, Entry<V>> entries;
+	/**
+	 * maximum total weight
+	 */
+	private final long capacity;
+	/**
+	 * total weight of the cached entries
+	 */
+	private long weight;
+	/**
+	 * number of lookups answered from the cache
+	 */
+	private long hits;
+	/**
+	 * number of lookups not answered from the cache
+	 */
+	private long misses;
+	/**
+	 * number of misses caused by entries of an older generation
+	 */
+	private long stale;
+	/**
+	 * number of entries evicted to stay within the capacity
+	 */
+	private long evictions;
+
+	/**
+	 * initialize new instance
+	 *
+	 * @param capacity maximum total weight
+	 * @throws IllegalArgumentException if the capacity is not positive
+	 */
+	protected GenerationCache(long capacity) {
+		if (capacity < 1) {
+			throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+		}
+		this.entries = new LinkedHashMap<>(16, 0.75f, true);
+		this.capacity = capacity;
+	}
+
+	/**
+	 * returns the weight of a value
+	 *
+	 * @param value the value
+	 * @return the weight, at least one
+	 */
+	protected abstract long weigh(V value);
+
+	/**
+	 * Returns the cached value of a key if it was computed at the given generation
+	 * or a later one and if it can be used by the caller
+	 *
+	 * @param key        the key
+	 * @param generation current generation of the index
+	 * @param usable     tells if a cached value answers the lookup
+	 * @return the cached value, or null if not cached
+	 */
+	protected synchronized V lookup(String key, long generation, Predicate<? super V> usable) {
+		Entry<V> entry = entries.get(key);
+		if (entry != null && entry.generation < generation) {
+			stale++;
+			misses++;
+			return null;
+		}
+		if (entry == null || !usable.test(entry.value)) {
+			misses++;
+			return null;
+		}
+		hits++;
+		return entry.value;
+	}
+
+	/**
+	 * Caches the value of a key, evicting the least recently used entries if the
+	 * cache grows over its capacity. Values heavier than the whole capacity are
+	 * not cached, and values never replace those of a later generation cached by
+	 * another thread in the meantime.
+	 *
+	 * @param key        the key
+	 * @param value      the value
+	 * @param generation generation of the index the value was computed at
+	 */
+	protected synchronized void store(String key, V value, long generation) {
+		Entry<V> entry = new Entry<>(value, generation, weigh(value));
+		Entry<V> old = entries.get(key);
+		if (old != null && old.generation > generation) {
+			return;
+		}
+		if (old != null) {
+			entries.remove(key);
+			weight -= old.weight;
+		}
+		if (entry.weight > capacity) {
+			return;
+		}
+		entries.put(key, entry);
+		weight += entry.weight;
+		Iterator<Entry<V>> iterator = entries.values().iterator();
+		while (weight > capacity) {
+			weight -= iterator.next().weight;
+			iterator.remove();
+			evictions++;
+		}
+	}
+
+	/**
+	 * removes every entry
+	 */
+	public synchronized void clear() {
+		entries.clear();
+		weight = 0;
+	}
+
+	/**
+	 * returns the number of cached keys
+	 *
+	 * @return number of entries
+	 */
+	public synchronized int size() {
+		return entries.size();
+	}
+
+	/**
+	 * returns the maximum total weight
+	 *
+	 * @return the capacity
+	 */
+	public long getCapacity() {
+		return capacity;
+	}
+
+	/**
+	 * returns the total weight of the cached entries
+	 *
+	 * @return the weight
+	 */
+	public synchronized long getWeight() {
+		return weight;
+	}
+
+	/**
+	 * returns the number of lookups answered from the cache
+	 *
+	 * @return number of hits
+	 */
+	public synchronized long getHits() {
+		return hits;
+	}
+
+	/**
+	 * returns the number of lookups not answered from the cache
+	 *
+	 * @return number of misses
+	 */
+	public synchronized long getMisses() {
+		return misses;
+	}
+
+	/**
+	 * returns the number of misses caused by entries of an older generation
+	 *
+	 * @return number of stale entries found
+	 */
+	public synchronized long getStale() {
+		return stale;
+	}
+
+	/**
+	 * returns the number of entries evicted to stay within the capacity
+	 *
+	 * @return number of evictions
+	 */
+	public synchronized long getEvictions() {
+		return evictions;
+	}
+
+	/**
+	 * to string method
+	 */
+	@Override
+	public synchronized String toString() {
+		return getClass().getSimpleName() + "[size=" + entries.size() + ", weight=" + weight + "/" + capacity
+				+ ", hits=" + hits + ", misses=" + misses + ", stale=" + stale + ", evictions=" + evictions + "]";
+	}
+
+	/**
+	 * cached value of one key
+	 *
+	 * @param <V> type of the value
+	 */
+	private static class Entry<V> {
+		/**
+		 * the value
+		 */
+		private final V value;
+		/**
+		 * generation of the index the value was computed at
+		 */
+		private final long generation;
+		/**
+		 * weight of the value
+		 */
+		private final long weight;
+
+		/**
+		 * initialize new instance
+		 *
+		 * @param value      the value
+		 * @param generation generation of the index the value was computed at
+		 * @param weight     weight of the value
+		 */
+		public Entry(V value, long generation, long weight) {
+			this.value = value;
+			this.generation = generation;
+			this.weight = weight;
+		}
+	}
+}
@@ -32,6 +32,14 @@ import jakarta.servlet.http.HttpServletResponse;
 public class HeaderServlet extends HttpServlet {
 	/** ID used for serialization, which we are not using. */
 	private static final long serialVersionUID = 202308;
+	/**
+	 * number of results shown unless the request asks for another limit
+	 */
+	public static final int DEFAULT_LIMIT = 50;
+	/**
+	 * number of single character edits allowed when a search finds nothing
+	 */
+	public static final int FUZZY_DISTANCE = 1;
 	/**
 	 * initialize results
 	 */
@@ -248,11 +256,28 @@ public class HeaderServlet extends HttpServlet {
 		searchHistory.add(timestampedQuery);
 		// query processing
 		response.setStatus(HttpServletResponse.SC_OK);
-		queryProcessor.processQuery(words, true);
-		var results = queryProcessor.getResults(words);
+		int limit;
+		try {
+			limit = Integer.parseInt(request.getParameter("limit"));
+		} catch (NumberFormatException e) {
+			limit = DEFAULT_LIMIT;
+		}
+		if (limit < 1) {
+			limit = DEFAULT_LIMIT;
+		}
+		var results = WildcardPattern.isWildcard(words) ? queryProcessor.searchWildcard(words, true, false, limit)
+				: queryProcessor.search(words, true, false, limit);
+		// misspelled words
+		boolean fuzzy = results.isEmpty();
+		if (fuzzy) {
+			results = queryProcessor.searchFuzzy(words, FUZZY_DISTANCE, false, limit);
+		}
 		// response
 		response.setContentType("text/html");
 		PrintWriter out = response.getWriter();
+		if (fuzzy && !results.isEmpty()) {
+			out.println("<p>No exact matches, showing results for similar words</p>");
+		}
 		Set<String> displayedResults = new HashSet<>();
 		for (var result : results) {
 			if (!displayedResults.contains(result.getWhere())) {
@@ -0,0 +1,1155 @@
+package GamGo;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Immutable copy of an inverted index built once indexing is finished. Terms
+ * are kept in a sorted array, the postings of every term are stored
+ * contiguously in parallel buffers of document IDs and frequencies, and the
+ * encoded positions of all postings are packed into a single byte buffer.
+ * Since nothing changes after construction, searches need no locking.
+ *
+ * Snapshots also serve as the immutable segments of a
+ * {@link ThreadedInvertedIndex}. Segments do not copy the word counts and read
+ * them from the shared document table instead, since a document may still be
+ * growing in a newer segment, and several segments can be combined into one
+ * with {@link #merge(List, DocumentTable, boolean)}.
+ *
+ * A snapshot can be written to a compact binary segment file with
+ * {@link #write(Path)} and loaded back with {@link #load(Path)}, which maps the
+ * file into memory and answers queries straight from the mapped buffers.
+ */
+public class IndexSnapshot {
+	/**
+	 * marks the start of a binary segment file
+	 */
+	private static final int MAGIC = 0x474D474F;
+	/**
+	 * version of the binary segment format
+	 */
+	private static final int VERSION = 1;
+	/**
+	 * number of ints in the binary segment header
+	 */
+	private static final int HEADER_INTS = 6;
+
+	/**
+	 * sorted terms
+	 */
+	private final String[] terms;
+	/**
+	 * index of the first posting of each term, with one extra entry at the end
+	 */
+	private final IntBuffer termStarts;
+	/**
+	 * document ID of each posting, sorted within a term
+	 */
+	private final IntBuffer documents;
+	/**
+	 * number of positions of each posting
+	 */
+	private final IntBuffer frequencies;
+	/**
+	 * index of the first encoded position byte of each posting, with one extra
+	 * entry at the end
+	 */
+	private final IntBuffer positionStarts;
+	/**
+	 * encoded positions of every posting
+	 */
+	private final ByteBuffer positions;
+	/**
+	 * word count indexed by document ID, or null to use the document table
+	 */
+	private final IntBuffer counts;
+	/**
+	 * table used to resolve document locations
+	 */
+	private final DocumentTable table;
+	/**
+	 * total number of positions
+	 */
+	private final int size;
+	/**
+	 * trie over the terms for prefix search, built on first use
+	 */
+	private volatile TermDictionary dictionary;
+	/**
+	 * reversed trie and trigram index over the terms for wildcard search, built
+	 * on first use
+	 */
+	private volatile WildcardDictionary wildcards;
+	/**
+	 * statistics of the last scorer used to search a frozen snapshot
+	 */
+	private volatile ScoreContext scoring;
+	/**
+	 * score bounds of every term, collected on first use
+	 */
+	private volatile TermBounds bounds;
+	/**
+	 * live postings of the terms counted since documents were last deleted
+	 */
+	private volatile LiveCounts live;
+
+	/**
+	 * Builds a snapshot of the given postings
+	 *
+	 * @param index postings keyed by term and document ID, each iterated in ID
+	 *              order
+	 * @param table document table the IDs belong to
+	 */
+	public IndexSnapshot(SortedMap<String, ? extends Map<Integer, PositionList>> index, DocumentTable table) {
+		this(index, table, true);
+	}
+
+	/**
+	 * Builds a segment of the given postings that reads word counts from the
+	 * document table instead of copying them
+	 *
+	 * @param index postings keyed by term and document ID, each iterated in ID
+	 *              order
+	 * @param table document table the IDs belong to
+	 * @return the segment
+	 */
+	public static IndexSnapshot segment(SortedMap<String, ? extends Map<Integer, PositionList>> index,
+			DocumentTable table) {
+		return new IndexSnapshot(index, table, false);
+	}
+
+	/**
+	 * Builds a snapshot of the given postings
+	 *
+	 * @param index      postings keyed by term and document ID, each iterated in ID
+	 *                   order
+	 * @param table      document table the IDs belong to
+	 * @param copyCounts whether to copy the word counts from the table
+	 */
+	private IndexSnapshot(SortedMap<String, ? extends Map<Integer, PositionList>> index, DocumentTable table,
+			boolean copyCounts) {
+		int termCount = 0;
+		int postings = 0;
+		int bytes = 0;
+		for (var locations : index.values()) {
+			int live = 0;
+			for (var location : locations.entrySet()) {
+				if (!table.isDeleted(location.getKey())) {
+					live++;
+					bytes += location.getValue().encodedLength();
+				}
+			}
+			postings += live;
+			termCount += live > 0 ? 1 : 0;
+		}
+		String[] termArray = new String[termCount];
+		int[] termStartArray = new int[termArray.length + 1];
+		int[] documentArray = new int[postings];
+		int[] frequencyArray = new int[postings];
+		int[] positionStartArray = new int[postings + 1];
+		byte[] positionArray = new byte[bytes];
+		int term = 0;
+		int posting = 0;
+		int offset = 0;
+		for (var entry : index.entrySet()) {
+			int first = posting;
+			for (var location : entry.getValue().entrySet()) {
+				if (table.isDeleted(location.getKey())) {
+					continue;
+				}
+				documentArray[posting] = location.getKey();
+				frequencyArray[posting] = location.getValue().size();
+				positionStartArray[posting++] = offset;
+				offset = location.getValue().writeTo(positionArray, offset);
+			}
+			if (posting > first) {
+				termArray[term] = entry.getKey();
+				termStartArray[term++] = first;
+			}
+		}
+		termStartArray[term] = posting;
+		positionStartArray[posting] = offset;
+		this.terms = termArray;
+		this.termStarts = IntBuffer.wrap(termStartArray);
+		this.documents = IntBuffer.wrap(documentArray);
+		this.frequencies = IntBuffer.wrap(frequencyArray);
+		this.positionStarts = IntBuffer.wrap(positionStartArray);
+		this.positions = ByteBuffer.wrap(positionArray);
+		this.counts = copyCounts ? copyCounts(table) : null;
+		this.table = table;
+		this.size = sum(frequencies);
+	}
+
+	/**
+	 * Creates a snapshot from already built buffers
+	 *
+	 * @param terms          sorted terms
+	 * @param termStarts     first posting of each term
+	 * @param documents      document ID of each posting
+	 * @param frequencies    number of positions of each posting
+	 * @param positionStarts first encoded position byte of each posting
+	 * @param positions      encoded positions
+	 * @param counts         word count of each document, or null to use the table
+	 * @param table          document table the IDs belong to
+	 */
+	private IndexSnapshot(String[] terms, IntBuffer termStarts, IntBuffer documents, IntBuffer frequencies,
+			IntBuffer positionStarts, ByteBuffer positions, IntBuffer counts, DocumentTable table) {
+		this.terms = terms;
+		this.termStarts = termStarts;
+		this.documents = documents;
+		this.frequencies = frequencies;
+		this.positionStarts = positionStarts;
+		this.positions = positions;
+		this.counts = counts;
+		this.table = table;
+		this.size = sum(frequencies);
+	}
+
+	/**
+	 * Merges several snapshots over the same document table into one. Terms are
+	 * combined in a single pass over the sorted term arrays and the encoded
+	 * positions are copied without decoding, unless the same document appears in
+	 * more than one snapshot for a term. Postings of deleted documents, and any
+	 * term left without postings, are purged.
+	 *
+	 * @param snapshots  snapshots to merge
+	 * @param table      document table the IDs belong to
+	 * @param copyCounts whether to copy the word counts from the table
+	 * @return the merged snapshot
+	 */
+	public static IndexSnapshot merge(List<IndexSnapshot> snapshots, DocumentTable table, boolean copyCounts) {
+		int termBound = 0;
+		int postingBound = 0;
+		int byteBound = 0;
+		for (IndexSnapshot snapshot : snapshots) {
+			termBound += snapshot.terms.length;
+			postingBound += snapshot.documents.limit();
+			byteBound += snapshot.positions.limit();
+		}
+		String[] termArray = new String[termBound];
+		int[] termStartArray = new int[termBound + 1];
+		int[] documentArray = new int[postingBound];
+		int[] frequencyArray = new int[postingBound];
+		int[] positionStartArray = new int[postingBound + 1];
+		byte[] positionArray = new byte[byteBound];
+		int[] cursors = new int[snapshots.size()];
+		int term = 0;
+		int posting = 0;
+		int offset = 0;
+		while (true) {
+			String next = null;
+			for (int i = 0; i < cursors.length; i++) {
+				IndexSnapshot snapshot = snapshots.get(i);
+				if (cursors[i] < snapshot.terms.length
+						&& (next == null || snapshot.terms[cursors[i]].compareTo(next) < 0)) {
+					next = snapshot.terms[cursors[i]];
+				}
+			}
+			if (next == null) {
+				break;
+			}
+			termArray[term] = next;
+			termStartArray[term++] = posting;
+			int first = posting;
+			boolean sorted = true;
+			for (int i = 0; i < cursors.length; i++) {
+				IndexSnapshot snapshot = snapshots.get(i);
+				if (cursors[i] == snapshot.terms.length || !snapshot.terms[cursors[i]].equals(next)) {
+					continue;
+				}
+				int from = snapshot.termStarts.get(cursors[i]);
+				int to = snapshot.termStarts.get(cursors[i] + 1);
+				for (int source = from; source < to; source++) {
+					if (table.isDeleted(snapshot.documents.get(source))) {
+						continue;
+					}
+					documentArray[posting] = snapshot.documents.get(source);
+					frequencyArray[posting] = snapshot.frequencies.get(source);
+					positionStartArray[posting] = offset;
+					int start = snapshot.positionStarts.get(source);
+					int length = snapshot.positionStarts.get(source + 1) - start;
+					snapshot.positions.get(start, positionArray, offset, length);
+					offset += length;
+					if (posting > first && documentArray[posting - 1] >= documentArray[posting]) {
+						sorted = false;
+					}
+					posting++;
+				}
+				cursors[i]++;
+			}
+			if (!sorted) {
+				TreeMap<Integer, PositionList> postings = new TreeMap<>();
+				ByteBuffer written = ByteBuffer.wrap(positionArray);
+				for (int i = first; i < posting; i++) {
+					int end = i + 1 < posting ? positionStartArray[i + 1] : offset;
+					PositionList list = PositionList.copyOf(written, positionStartArray[i], end);
+					PositionList existing = postings.putIfAbsent(documentArray[i], list);
+					if (existing != null) {
+						existing.addAll(list);
+					}
+				}
+				posting = first;
+				offset = positionStartArray[first];
+				for (var entry : postings.entrySet()) {
+					documentArray[posting] = entry.getKey();
+					frequencyArray[posting] = entry.getValue().size();
+					positionStartArray[posting++] = offset;
+					offset = entry.getValue().writeTo(positionArray, offset);
+				}
+			}
+			if (posting == first) {
+				term--;
+			}
+		}
+		termStartArray[term] = posting;
+		positionStartArray[posting] = offset;
+		return new IndexSnapshot(Arrays.copyOf(termArray, term),
+				IntBuffer.wrap(Arrays.copyOf(termStartArray, term + 1)),
+				IntBuffer.wrap(Arrays.copyOf(documentArray, posting)),
+				IntBuffer.wrap(Arrays.copyOf(frequencyArray, posting)),
+				IntBuffer.wrap(Arrays.copyOf(positionStartArray, posting + 1)),
+				ByteBuffer.wrap(Arrays.copyOf(positionArray, offset)), copyCounts ? copyCounts(table) : null, table);
+	}
+
+	/**
+	 * returns a copy of this snapshot without the postings of deleted documents,
+	 * reading word counts from the document table
+	 *
+	 * @return the copy, or this snapshot if it has no postings of deleted documents
+	 */
+	public IndexSnapshot compact() {
+		if (table.numDeleted() > 0) {
+			for (int posting = 0; posting < documents.limit(); posting++) {
+				if (table.isDeleted(documents.get(posting))) {
+					return merge(List.of(this), table, false);
+				}
+			}
+		}
+		return this;
+	}
+
+	/**
+	 * copies the word count of every document in the table
+	 *
+	 * @param table table to copy from
+	 * @return buffer of word counts indexed by document ID
+	 */
+	private static IntBuffer copyCounts(DocumentTable table) {
+		int[] countArray = new int[table.size()];
+		for (int id = 0; id < countArray.length; id++) {
+			countArray[id] = table.getCount(id);
+		}
+		return IntBuffer.wrap(countArray);
+	}
+
+	/**
+	 * adds up every int in the buffer
+	 *
+	 * @param ints buffer to add up
+	 * @return the sum
+	 */
+	private static int sum(IntBuffer ints) {
+		int sum = 0;
+		for (int i = 0; i < ints.limit(); i++) {
+			sum += ints.get(i);
+		}
+		return sum;
+	}
+
+	/**
+	 * Writes the snapshot as a binary segment file. The file starts with a header
+	 * of {@value #HEADER_INTS} ints (magic number, version, and the number of
+	 * terms, postings, documents and encoded position bytes), followed by the int
+	 * sections (term starts, documents, frequencies, position starts, counts), the
+	 * term dictionary and document table as offsets followed by UTF-8 bytes, and
+	 * finally the encoded positions. Deleted documents keep their ID and are
+	 * written with a count of -1.
+	 *
+	 * @param path path to write to
+	 * @throws IOException exception thrown
+	 */
+	public void write(Path path) throws IOException {
+		byte[][] termBytes = encode(terms);
+		String[] locations = table.getLocations();
+		byte[][] locationBytes = encode(locations);
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)))) {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeInt(terms.length);
+			out.writeInt(documents.limit());
+			out.writeInt(locations.length);
+			out.writeInt(positions.limit());
+			writeInts(termStarts, out);
+			writeInts(documents, out);
+			writeInts(frequencies, out);
+			writeInts(positionStarts, out);
+			for (int id = 0; id < locations.length; id++) {
+				out.writeInt(table.isDeleted(id) ? -1 : getTotal(id));
+			}
+			writeStrings(termBytes, out);
+			writeStrings(locationBytes, out);
+			if (positions.hasArray()) {
+				out.write(positions.array(), positions.arrayOffset(), positions.limit());
+			} else {
+				for (int i = 0; i < positions.limit(); i++) {
+					out.write(positions.get(i));
+				}
+			}
+		}
+	}
+
+	/**
+	 * Maps a binary segment file written by {@link #write(Path)} into memory. The
+	 * term dictionary and document table are decoded onto the heap, while postings,
+	 * frequencies, counts and positions are read directly from the mapped file.
+	 *
+	 * @param path path of the segment file
+	 * @return the mapped snapshot
+	 * @throws IOException if the file cannot be read or is not a segment file
+	 */
+	public static IndexSnapshot load(Path path) throws IOException {
+		MappedByteBuffer buffer;
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			if (channel.size() > Integer.MAX_VALUE) {
+				throw new IOException("Segment file is too large to map: " + path);
+			}
+			buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		}
+		if (buffer.limit() < HEADER_INTS * Integer.BYTES || buffer.getInt(0) != MAGIC) {
+			throw new IOException("Not a binary index file: " + path);
+		}
+		if (buffer.getInt(4) != VERSION) {
+			throw new IOException("Unsupported binary index version " + buffer.getInt(4) + ": " + path);
+		}
+		int termCount = buffer.getInt(8);
+		int postingCount = buffer.getInt(12);
+		int documentCount = buffer.getInt(16);
+		int positionBytes = buffer.getInt(20);
+		int offset = HEADER_INTS * Integer.BYTES;
+		IntBuffer termStarts = slice(buffer, offset, termCount + 1).asIntBuffer();
+		offset += (termCount + 1) * Integer.BYTES;
+		IntBuffer documents = slice(buffer, offset, postingCount).asIntBuffer();
+		offset += postingCount * Integer.BYTES;
+		IntBuffer frequencies = slice(buffer, offset, postingCount).asIntBuffer();
+		offset += postingCount * Integer.BYTES;
+		IntBuffer positionStarts = slice(buffer, offset, postingCount + 1).asIntBuffer();
+		offset += (postingCount + 1) * Integer.BYTES;
+		IntBuffer counts = slice(buffer, offset, documentCount).asIntBuffer();
+		offset += documentCount * Integer.BYTES;
+		String[] terms = new String[termCount];
+		offset = readStrings(buffer, offset, terms);
+		String[] locations = new String[documentCount];
+		offset = readStrings(buffer, offset, locations);
+		ByteBuffer positions = buffer.slice(offset, positionBytes);
+		DocumentTable table = new DocumentTable();
+		for (int id = 0; id < locations.length; id++) {
+			if (counts.get(id) < 0) {
+				table.addDeleted(locations[id]);
+			} else {
+				table.add(locations[id]);
+				table.addCount(id, counts.get(id));
+			}
+		}
+		return new IndexSnapshot(terms, termStarts, documents, frequencies, positionStarts, positions, counts, table);
+	}
+
+	/**
+	 * returns a slice of the buffer holding the given number of ints
+	 *
+	 * @param buffer buffer to slice
+	 * @param offset byte offset of the first int
+	 * @param ints   number of ints
+	 * @return the slice
+	 * @throws IOException if the slice does not fit in the buffer
+	 */
+	private static ByteBuffer slice(ByteBuffer buffer, int offset, int ints) throws IOException {
+		if (ints < 0 || offset + (long) ints * Integer.BYTES > buffer.limit()) {
+			throw new IOException("Binary index file is truncated.");
+		}
+		return buffer.slice(offset, ints * Integer.BYTES);
+	}
+
+	/**
+	 * encodes strings as UTF-8
+	 *
+	 * @param strings strings to encode
+	 * @return encoded strings
+	 */
+	private static byte[][] encode(String[] strings) {
+		byte[][] encoded = new byte[strings.length][];
+		for (int i = 0; i < strings.length; i++) {
+			encoded[i] = strings[i].getBytes(UTF_8);
+		}
+		return encoded;
+	}
+
+	/**
+	 * writes every int in the buffer
+	 *
+	 * @param ints buffer to write
+	 * @param out  stream to write to
+	 * @throws IOException exception thrown
+	 */
+	private static void writeInts(IntBuffer ints, DataOutputStream out) throws IOException {
+		for (int i = 0; i < ints.limit(); i++) {
+			out.writeInt(ints.get(i));
+		}
+	}
+
+	/**
+	 * writes the end offset of every string followed by the string bytes
+	 *
+	 * @param strings encoded strings
+	 * @param out     stream to write to
+	 * @throws IOException exception thrown
+	 */
+	private static void writeStrings(byte[][] strings, DataOutputStream out) throws IOException {
+		int end = 0;
+		for (byte[] string : strings) {
+			end += string.length;
+			out.writeInt(end);
+		}
+		for (byte[] string : strings) {
+			out.write(string);
+		}
+	}
+
+	/**
+	 * reads strings written by {@link #writeStrings(byte[][], DataOutputStream)}
+	 *
+	 * @param buffer  buffer to read from
+	 * @param offset  byte offset of the first end offset
+	 * @param strings array to fill
+	 * @return the byte offset after the strings
+	 * @throws IOException if the strings do not fit in the buffer
+	 */
+	private static int readStrings(ByteBuffer buffer, int offset, String[] strings) throws IOException {
+		IntBuffer ends = slice(buffer, offset, strings.length).asIntBuffer();
+		int start = offset + strings.length * Integer.BYTES;
+		int total = strings.length == 0 ? 0 : ends.get(strings.length - 1);
+		if (start + (long) total > buffer.limit()) {
+			throw new IOException("Binary index file is truncated.");
+		}
+		int previous = 0;
+		for (int i = 0; i < strings.length; i++) {
+			byte[] bytes = new byte[ends.get(i) - previous];
+			buffer.get(start + previous, bytes);
+			strings[i] = new String(bytes, UTF_8);
+			previous = ends.get(i);
+		}
+		return start + total;
+	}
+
+	/**
+	 * returns the document table the snapshot's IDs belong to
+	 *
+	 * @return the document table
+	 */
+	public DocumentTable getDocuments() {
+		return table;
+	}
+
+	/**
+	 * returns the total number of positions in the snapshot
+	 *
+	 * @return number of positions
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * returns the word count of a document
+	 *
+	 * @param document document ID
+	 * @return the word count
+	 */
+	int getTotal(int document) {
+		return counts != null ? counts.get(document) : table.getCount(document);
+	}
+
+	/**
+	 * returns the index of a term in the sorted term array
+	 *
+	 * @param word term to find
+	 * @return the term index, or a negative value if not present
+	 */
+	private int findTerm(String word) {
+		return Arrays.binarySearch(terms, word);
+	}
+
+	/**
+	 * Returns the term dictionary used for prefix search. Segments are often
+	 * merged away before they are ever searched, so the dictionary is only built
+	 * the first time it is needed.
+	 *
+	 * @return the term dictionary
+	 */
+	TermDictionary dictionary() {
+		TermDictionary result = dictionary;
+		if (result == null) {
+			result = new TermDictionary(terms);
+			dictionary = result;
+		}
+		return result;
+	}
+
+	/**
+	 * returns the indexes used for wildcard search, built the first time they are
+	 * needed like the term dictionary
+	 *
+	 * @return the wildcard dictionary
+	 */
+	WildcardDictionary wildcards() {
+		WildcardDictionary result = wildcards;
+		if (result == null) {
+			result = new WildcardDictionary(terms, dictionary());
+			wildcards = result;
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the statistics that bound the score of every term, read from the
+	 * postings the first time a ranked search needs them. Word counts only grow
+	 * and deleted documents never come back, so the bounds stay valid for as long
+	 * as the snapshot is used.
+	 *
+	 * @return the bounds
+	 */
+	private TermBounds bounds() {
+		TermBounds result = bounds;
+		if (result == null) {
+			result = new TermBounds();
+			bounds = result;
+		}
+		return result;
+	}
+
+	/**
+	 * returns the index of the posting for a term and document
+	 *
+	 * @param term     term index
+	 * @param document document ID
+	 * @return the posting index, or a negative value if not present
+	 */
+	private int findPosting(int term, int document) {
+		int low = termStarts.get(term);
+		int high = termStarts.get(term + 1) - 1;
+		while (low <= high) {
+			int middle = (low + high) >>> 1;
+			int value = documents.get(middle);
+			if (value < document) {
+				low = middle + 1;
+			} else if (value > document) {
+				high = middle - 1;
+			} else {
+				return middle;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * returns a copy of the encoded positions of a posting
+	 *
+	 * @param posting posting index
+	 * @return the positions
+	 */
+	private PositionList getPositionList(int posting) {
+		return PositionList.copyOf(positions, positionStarts.get(posting), positionStarts.get(posting + 1));
+	}
+
+	/**
+	 * checks if the snapshot contains a word
+	 *
+	 * @param word word to check
+	 * @return true if present
+	 */
+	public boolean hasWord(String word) {
+		int term = findTerm(word);
+		return term >= 0 && numLive(term) > 0;
+	}
+
+	/**
+	 * Returns the number of postings of a term whose document was not deleted.
+	 * Without deletions this is the length of the term's postings, fixed when the
+	 * snapshot was built. Otherwise the term's postings are counted once and kept
+	 * until more documents are deleted.
+	 *
+	 * @param term term index
+	 * @return number of postings
+	 */
+	private int numLive(int term) {
+		int start = termStarts.get(term);
+		int end = termStarts.get(term + 1);
+		BitSet deleted = table.getDeleted();
+		if (deleted.isEmpty()) {
+			return end - start;
+		}
+		LiveCounts counted = live;
+		if (counted == null || counted.deleted != deleted) {
+			counted = new LiveCounts(deleted, terms.length);
+			live = counted;
+		}
+		int count = counted.counts[term];
+		if (count < 0) {
+			count = 0;
+			for (int posting = start; posting < end; posting++) {
+				if (!deleted.get(documents.get(posting))) {
+					count++;
+				}
+			}
+			counted.counts[term] = count;
+		}
+		return count;
+	}
+
+	/**
+	 * returns the number of words
+	 *
+	 * @return number of words
+	 */
+	public int numWords() {
+		return table.numDeleted() == 0 ? terms.length : getWords().size();
+	}
+
+	/**
+	 * return unmodifiable sorted set of words
+	 *
+	 * @return unmodifiable sorted set
+	 */
+	public SortedSet<String> getWords() {
+		if (table.numDeleted() == 0) {
+			return Collections.unmodifiableSortedSet(new TreeSet<>(Arrays.asList(terms)));
+		}
+		TreeSet<String> words = new TreeSet<>();
+		for (int term = 0; term < terms.length; term++) {
+			if (numLive(term) > 0) {
+				words.add(terms[term]);
+			}
+		}
+		return Collections.unmodifiableSortedSet(words);
+	}
+
+	/**
+	 * returns the number of documents containing a word
+	 *
+	 * @param word word to find
+	 * @return number of documents
+	 */
+	public int numPaths(String word) {
+		int term = findTerm(word);
+		return term < 0 ? 0 : numLive(term);
+	}
+
+	/**
+	 * get sorted set of locations where the word appears
+	 *
+	 * @param word word to find
+	 * @return unmodifiable sorted set of locations
+	 */
+	public SortedSet<String> getLocation(String word) {
+		int term = findTerm(word);
+		if (term < 0) {
+			return Collections.emptySortedSet();
+		}
+		TreeSet<String> paths = new TreeSet<>();
+		for (int posting = termStarts.get(term); posting < termStarts.get(term + 1); posting++) {
+			if (!table.isDeleted(documents.get(posting))) {
+				paths.add(table.getLocation(documents.get(posting)));
+			}
+		}
+		return Collections.unmodifiableSortedSet(paths);
+	}
+
+	/**
+	 * returns a copy of the positions for a word and document
+	 *
+	 * @param word     word to find
+	 * @param document document ID
+	 * @return the positions, or null if the word does not appear in the document
+	 */
+	public PositionList getPositionList(String word, int document) {
+		int term = findTerm(word);
+		if (term < 0) {
+			return null;
+		}
+		int posting = findPosting(term, document);
+		return posting < 0 ? null : getPositionList(posting);
+	}
+
+	/**
+	 * returns the postings of a term as a map from document ID to positions,
+	 * leaving out deleted documents
+	 *
+	 * @param term term index
+	 * @return sorted map of postings
+	 */
+	private TreeMap<Integer, PositionList> getPostings(int term) {
+		TreeMap<Integer, PositionList> postings = new TreeMap<>();
+		for (int posting = termStarts.get(term); posting < termStarts.get(term + 1); posting++) {
+			if (!table.isDeleted(documents.get(posting))) {
+				postings.put(documents.get(posting), getPositionList(posting));
+			}
+		}
+		return postings;
+	}
+
+	/**
+	 * returns the postings of every term in sorted order, decoding each term only
+	 * when it is reached
+	 *
+	 * @return entries from term to postings keyed by document ID
+	 */
+	public Iterable<Map.Entry<String, TreeMap<Integer, PositionList>>> entries() {
+		return () -> new Iterator<>() {
+			private int term = 0;
+
+			@Override
+			public boolean hasNext() {
+				return term < terms.length;
+			}
+
+			@Override
+			public Map.Entry<String, TreeMap<Integer, PositionList>> next() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+				var entry = new AbstractMap.SimpleImmutableEntry<>(terms[term], getPostings(term));
+				term++;
+				return entry;
+			}
+		};
+	}
+
+	/**
+	 * writes the snapshot in the same Json format as the inverted index
+	 *
+	 * @param writer writer to use
+	 * @throws IOException exception thrown
+	 */
+	public void writeIndex(Writer writer) throws IOException {
+		JsonWriter.nested(entries(), table, writer, 0);
+	}
+
+	/**
+	 * does exact search on given query words set
+	 *
+	 * @param queries set of query words
+	 * @return sorted list of search results matching query words
+	 */
+	public ArrayList<InvertedIndex.SearchResult> exactSearch(Set<String> queries) {
+		return search(queries, false, false, null);
+	}
+
+	/**
+	 * does partial search on given set of words
+	 *
+	 * @param words words to search
+	 * @return sorted list of search results
+	 */
+	public ArrayList<InvertedIndex.SearchResult> searchPartial(Set<String> words) {
+		return search(words, true, false, null);
+	}
+
+	/**
+	 * does conjunctive search, returning only the documents that match every word
+	 *
+	 * @param words   words to search
+	 * @param partial whether words are prefixes
+	 * @return sorted list of search results
+	 */
+	public ArrayList<InvertedIndex.SearchResult> conjunctiveSearch(Set<String> words, boolean partial) {
+		return search(words, partial, true, null);
+	}
+
+	/**
+	 * searches the snapshot
+	 *
+	 * @param words   words to search
+	 * @param partial whether words are prefixes
+	 * @param and     whether results must match every word
+	 * @param scorer  scorer to use, or null for the default score
+	 * @return sorted list of search results
+	 */
+	public ArrayList<InvertedIndex.SearchResult> search(Set<String> words, boolean partial, boolean and,
+			Scorer scorer) {
+		return search(words, partial, and, scorer, TopResults.ALL);
+	}
+
+	/**
+	 * searches the snapshot, returning only the best results
+	 *
+	 * @param words   words to search
+	 * @param partial whether words are prefixes
+	 * @param and     whether results must match every word
+	 * @param scorer  scorer to use, or null for the default score
+	 * @param limit   maximum number of results, or {@link TopResults#ALL}
+	 * @return sorted list of search results
+	 */
+	public ArrayList<InvertedIndex.SearchResult> search(Set<String> words, boolean partial, boolean and,
+			Scorer scorer, int limit) {
+		ScoreContext scoring = scoring(scorer);
+		TopResults top = new TopResults(limit);
+		List<List<PostingCursor>> cursors = new ArrayList<>();
+		for (String word : words) {
+			List<PostingCursor> wordCursors = new ArrayList<>();
+			cursors(word, partial, wordCursors);
+			cursors.add(wordCursors);
+		}
+		if (scoring != null && table.hasDeleted()) {
+			PostingCursor.countDocuments(cursors, table);
+		}
+		if (and) {
+			PostingCursor.intersect(cursors, table, this::getTotal, scoring, top);
+		} else {
+			PostingCursor.rank(cursors, table, this::getTotal, scoring, top);
+		}
+		return top.toList();
+	}
+
+	/**
+	 * Returns the statistics used to score this snapshot. A frozen snapshot copies
+	 * the word counts of its documents, so their length norms are computed once
+	 * into an array and kept for later searches with the same scorer. Segments
+	 * read word counts from the document table, where documents may still be
+	 * added, so their norms are computed as postings are scored.
+	 *
+	 * @param scorer scorer to use, or null for the default score
+	 * @return the statistics, or null if there is no scorer
+	 */
+	ScoreContext scoring(Scorer scorer) {
+		if (scorer == null) {
+			return null;
+		}
+		ScoreContext result = scoring;
+		if (result != null && result.getScorer() == scorer) {
+			return result;
+		}
+		if (counts == null) {
+			return new ScoreContext(scorer, table, table::getCount);
+		}
+		result = new ScoreContext(scorer, table, counts::get, counts.limit());
+		scoring = result;
+		return result;
+	}
+
+	/**
+	 * Adds a cursor over the postings of every term matching a word. A phrase is
+	 * matched at consecutive positions, and a word with wildcards is matched as a
+	 * {@link WildcardPattern} whether or not the search is partial.
+	 *
+	 * @param word    word to search
+	 * @param partial whether the word is a prefix
+	 * @param cursors list to add the cursors to
+	 */
+	void cursors(String word, boolean partial, List<PostingCursor> cursors) {
+		if (InvertedIndex.isPhrase(word)) {
+			List<PostingCursor> phrase = new ArrayList<>();
+			for (String term : InvertedIndex.phraseWords(word)) {
+				int found = findTerm(term);
+				if (found < 0) {
+					return;
+				}
+				phrase.add(new TermCursor(found));
+			}
+			PostingCursor matches = PostingCursor.phrase(word, phrase);
+			if (matches.remaining() > 0) {
+				cursors.add(matches);
+			}
+			return;
+		}
+		if (WildcardPattern.isWildcard(word)) {
+			for (int term : wildcards().find(new WildcardPattern(word))) {
+				cursors.add(new TermCursor(term));
+			}
+			return;
+		}
+		if (!partial) {
+			int term = findTerm(word);
+			if (term >= 0) {
+				cursors.add(new TermCursor(term));
+			}
+			return;
+		}
+		int[] range = dictionary().prefixRange(word);
+		for (int term = range[0]; term < range[1]; term++) {
+			cursors.add(new TermCursor(term));
+		}
+	}
+
+	/**
+	 * adds a cursor over the postings of every term accepted by a Levenshtein
+	 * automaton
+	 *
+	 * @param automaton automaton accepting the terms within an edit distance of a
+	 *                  word
+	 * @param cursors   list to add the cursors to
+	 */
+	void cursors(LevenshteinAutomaton automaton, List<PostingCursor> cursors) {
+		for (int term : dictionary().fuzzy(automaton)) {
+			cursors.add(new TermCursor(term));
+		}
+	}
+
+	/**
+	 * to string method
+	 */
+	@Override
+	public String toString() {
+		return "IndexSnapshot[terms=" + terms.length + ", postings=" + documents.limit() + ", documents="
+				+ table.size() + "]";
+	}
+
+	/**
+	 * highest frequency, shortest document and highest default score of the
+	 * postings of every term, skipping deleted documents
+	 */
+	private class TermBounds {
+		/**
+		 * highest frequency of each term
+		 */
+		private final int[] maxFrequencies;
+		/**
+		 * word count of the shortest document of each term
+		 */
+		private final int[] minLengths;
+		/**
+		 * highest frequency divided by word count of each term
+		 */
+		private final double[] maxRatios;
+
+		/**
+		 * collects the bounds of every term
+		 */
+		public TermBounds() {
+			this.maxFrequencies = new int[terms.length];
+			this.minLengths = new int[terms.length];
+			this.maxRatios = new double[terms.length];
+			for (int term = 0; term < terms.length; term++) {
+				int frequency = 0;
+				int length = Integer.MAX_VALUE;
+				double ratio = 0;
+				for (int posting = termStarts.get(term); posting < termStarts.get(term + 1); posting++) {
+					int document = documents.get(posting);
+					if (table.isDeleted(document)) {
+						continue;
+					}
+					int total = getTotal(document);
+					frequency = Math.max(frequency, frequencies.get(posting));
+					length = Math.min(length, total);
+					ratio = Math.max(ratio, (double) frequencies.get(posting) / total);
+				}
+				maxFrequencies[term] = frequency;
+				minLengths[term] = length;
+				maxRatios[term] = ratio;
+			}
+		}
+	}
+
+	/**
+	 * cursor over the postings of a term
+	 */
+	private class TermCursor extends PostingCursor {
+		/**
+		 * term index
+		 */
+		private final int term;
+
+		/**
+		 * initialize new instance
+		 *
+		 * @param term term index
+		 */
+		public TermCursor(int term) {
+			super(termStarts.get(term), termStarts.get(term + 1));
+			this.term = term;
+		}
+
+		@Override
+		public double bound(ScoreContext scoring, double weight) {
+			TermBounds stats = bounds();
+			return scoring == null ? stats.maxRatios[term]
+					: scoring.bound(stats.maxFrequencies[term], weight, stats.minLengths[term]);
+		}
+
+		@Override
+		protected int documentAt(int index) {
+			return documents.get(index);
+		}
+
+		@Override
+		protected int frequencyAt(int index) {
+			return frequencies.get(index);
+		}
+
+		@Override
+		protected PositionCursor positionsAt(int index) {
+			return new PositionCursor(positions, positionStarts.get(index), positionStarts.get(index + 1));
+		}
+
+		@Override
+		protected String term() {
+			return terms[term];
+		}
+
+		@Override
+		protected int live(DocumentTable documents) {
+			return numLive(term);
+		}
+	}
+
+	/**
+	 * live postings of every term for one set of deleted documents. Counting a
+	 * term again from another thread gives the same count, so the counts are
+	 * filled in without locking.
+	 */
+	private static class LiveCounts {
+		/**
+		 * deleted documents the postings were counted for
+		 */
+		private final BitSet deleted;
+		/**
+		 * live postings of each term, or -1 if not counted yet
+		 */
+		private final int[] counts;
+
+		/**
+		 * initialize new instance with no term counted
+		 *
+		 * @param deleted deleted documents to count for
+		 * @param terms   number of terms
+		 */
+		public LiveCounts(BitSet deleted, int terms) {
+			this.deleted = deleted;
+			this.counts = new int[terms];
+			Arrays.fill(counts, -1);
+		}
+	}
+}
@@ -1,10 +1,16 @@
 package GamGo;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.BufferedWriter;
 import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -12,27 +18,212 @@ import java.util.SortedMap;
 import java.util.SortedSet;
 import java.util.TreeMap;
 import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntUnaryOperator;
 
 /**
  * InvertedIndex class
  */
 public class InvertedIndex {
 	/**
-	 * initialize
+	 * largest ratio between the number of words in this index and in an added
+	 * index for which both are walked in lockstep instead of looking up every
+	 * added word
+	 */
+	private static final int LOCKSTEP_RATIO = 4;
+	/**
+	 * word to document ID to compressed positions
+	 */
+	private final TreeMap<String, Postings> invertedIndex;
+	/**
+	 * document IDs, locations and word counts
+	 */
+	private final DocumentTable documents;
+	/**
+	 * read-only snapshot that replaces the maps once the index is frozen
+	 */
+	private volatile IndexSnapshot snapshot;
+	/**
+	 * number of positions added since the maps were last cleared
+	 */
+	private int size;
+	/**
+	 * scorer used to rank search results, or null for the default score
 	 */
-	private final TreeMap<String, TreeMap<String, TreeSet<Integer>>> invertedIndex;
+	private volatile Scorer scorer;
 	/**
-	 * initialize
+	 * number of changes made to the contents of the index
 	 */
-	private final TreeMap<String, Integer> counts;
+	private final AtomicLong generation;
+	/**
+	 * merged postings of the prefixes of recent partial searches
+	 */
+	private final PrefixCache prefixes;
 
 	/**
 	 * initialize new instance
-	 * 
+	 *
 	 */
 	public InvertedIndex() {
+		this(new DocumentTable());
+	}
+
+	/**
+	 * initialize new instance that assigns document IDs from a shared table
+	 *
+	 * @param documents the document table to use
+	 */
+	public InvertedIndex(DocumentTable documents) {
 		this.invertedIndex = new TreeMap<>();
-		this.counts = new TreeMap<>();
+		this.documents = documents;
+		this.snapshot = null;
+		this.size = 0;
+		this.generation = new AtomicLong();
+		this.prefixes = new PrefixCache();
+	}
+
+	/**
+	 * initialize a frozen instance that answers everything from a snapshot, such
+	 * as one loaded with {@link IndexSnapshot#load(Path)}
+	 *
+	 * @param snapshot the snapshot to use
+	 */
+	public InvertedIndex(IndexSnapshot snapshot) {
+		this.invertedIndex = new TreeMap<>();
+		this.documents = snapshot.getDocuments();
+		this.snapshot = snapshot;
+		this.size = snapshot.size();
+		this.generation = new AtomicLong();
+		this.prefixes = new PrefixCache();
+	}
+
+	/**
+	 * returns the document table used to assign document IDs
+	 *
+	 * @return the document table
+	 */
+	public DocumentTable getDocuments() {
+		return documents;
+	}
+
+	/**
+	 * returns the number of positions in the index
+	 *
+	 * @return number of positions
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Writes the index as a binary segment file that can be loaded with
+	 * {@link IndexSnapshot#load(Path)}. The index is frozen first if necessary.
+	 *
+	 * @param path path to use
+	 * @throws IOException exception thrown
+	 */
+	public void writeBinary(Path path) throws IOException {
+		freeze();
+		snapshot.write(path);
+	}
+
+	/**
+	 * Turns this index into an immutable, array-backed snapshot. The maps used
+	 * while building are released, every later read is answered by the snapshot,
+	 * and searches no longer need any locking. Adding to a frozen index throws an
+	 * {@link IllegalStateException}. Freezing an already frozen index does nothing.
+	 */
+	public void freeze() {
+		if (snapshot == null) {
+			freeze(new IndexSnapshot(invertedIndex, documents));
+		}
+	}
+
+	/**
+	 * Freezes the index with a snapshot built elsewhere, such as one merged from
+	 * segments, releasing the maps. With a scorer, the length norms of the
+	 * snapshot are computed before it answers any search.
+	 *
+	 * @param frozen snapshot that answers every later read
+	 */
+	protected void freeze(IndexSnapshot frozen) {
+		frozen.scoring(scorer);
+		snapshot = frozen;
+		size = frozen.size();
+		invertedIndex.clear();
+		advanceGeneration();
+	}
+
+	/**
+	 * Returns the generation of the index, which grows every time a document is
+	 * added or removed. Results searched at one generation are still up to date
+	 * as long as the generation has not changed. Terms are weighted by their
+	 * document frequency across the whole index, so merging and freezing find the
+	 * same documents with the same scores. They still move to a new generation,
+	 * because the scores of a document can be added up in a different order and
+	 * differ in the last bits, which may reorder ties. Compacting only drops the
+	 * postings of deleted documents, so it keeps the generation.
+	 *
+	 * @return the generation
+	 */
+	public long getGeneration() {
+		return generation.get();
+	}
+
+	/**
+	 * returns the cache of the merged postings of prefixes used by partial
+	 * searches
+	 *
+	 * @return the prefix cache
+	 */
+	public PrefixCache getPrefixCache() {
+		return prefixes;
+	}
+
+	/**
+	 * moves the index to a new generation, once a change is visible to searches
+	 */
+	protected void advanceGeneration() {
+		generation.incrementAndGet();
+	}
+
+	/**
+	 * returns a segment holding everything currently in the maps, without changing
+	 * the index
+	 *
+	 * @return the segment
+	 */
+	protected IndexSnapshot toSegment() {
+		return IndexSnapshot.segment(invertedIndex, documents);
+	}
+
+	/**
+	 * removes every posting from the maps, keeping the document table
+	 */
+	protected void clear() {
+		checkNotFrozen();
+		invertedIndex.clear();
+		size = 0;
+	}
+
+	/**
+	 * checks if the index has been frozen
+	 *
+	 * @return true if frozen
+	 */
+	public boolean isFrozen() {
+		return snapshot != null;
+	}
+
+	/**
+	 * throws an exception if the index can no longer be changed
+	 *
+	 * @throws IllegalStateException if the index is frozen
+	 */
+	protected void checkNotFrozen() throws IllegalStateException {
+		if (snapshot != null) {
+			throw new IllegalStateException("Cannot add to a frozen index.");
+		}
 	}
 
 	/**
@@ -42,30 +233,197 @@ public class InvertedIndex {
 	 *                   InvertedIndex //
 	 */
 	public void addDistinct(InvertedIndex otherIndex) {
-		for (var otherEntry : otherIndex.invertedIndex.entrySet()) {
+		checkNotFrozen();
+		if (otherIndex.isFrozen()) {
+			throw new IllegalArgumentException("Cannot add from a frozen index.");
+		}
+		int[] ids = this.documents.addAll(otherIndex.documents);
+		addPostings(otherIndex.invertedIndex, ids);
+		for (int i = 0; i < ids.length; i++) {
+			if (ids[i] >= 0) {
+				this.documents.addCount(ids[i], otherIndex.documents.getCount(i));
+			}
+		}
+		advanceGeneration();
+	}
+
+	/**
+	 * returns the postings of every word, for adding them to another index
+	 *
+	 * @return unmodifiable sorted map from word to postings keyed by document ID
+	 */
+	protected SortedMap<String, Postings> postings() {
+		return Collections.unmodifiableSortedMap(invertedIndex);
+	}
+
+	/**
+	 * Adds postings from another index without touching the word counts. When the
+	 * other index holds a large share of the words of this index, both sorted
+	 * word maps are walked in lockstep so every word is found by stepping forward
+	 * instead of searching from the root, and the new words are inserted after
+	 * the walk. Otherwise every word is looked up on its own.
+	 *
+	 * @param postings postings keyed by word and by the other index's document IDs
+	 * @param ids      array mapping the other index's document IDs to IDs in this
+	 *                 index, with -1 for documents to skip
+	 */
+	protected void addPostings(SortedMap<String, ? extends Map<Integer, PositionList>> postings, int[] ids) {
+		checkNotFrozen();
+		if (invertedIndex.size() > (long) postings.size() * LOCKSTEP_RATIO) {
+			for (var otherEntry : postings.entrySet()) {
+				var thisMap = invertedIndex.get(otherEntry.getKey());
+				if (thisMap != null) {
+					size += thisMap.addAll(otherEntry.getValue(), ids);
+				} else {
+					thisMap = new Postings();
+					int added = thisMap.addAll(otherEntry.getValue(), ids);
+					if (added > 0) {
+						invertedIndex.put(otherEntry.getKey(), thisMap);
+						size += added;
+					}
+				}
+			}
+			return;
+		}
+		List<String> newWords = new ArrayList<>();
+		List<Postings> newPostings = new ArrayList<>();
+		var these = invertedIndex.entrySet().iterator();
+		var current = these.hasNext() ? these.next() : null;
+		for (var otherEntry : postings.entrySet()) {
 			String otherWord = otherEntry.getKey();
-			var otherMap = otherEntry.getValue();
-			var thisMap = this.invertedIndex.get(otherWord);
-			if (thisMap == null) {
-				this.invertedIndex.put(otherWord, new TreeMap<>(otherMap));
+			int compare = -1;
+			while (current != null && (compare = current.getKey().compareTo(otherWord)) < 0) {
+				current = these.hasNext() ? these.next() : null;
+			}
+			if (current != null && compare == 0) {
+				size += current.getValue().addAll(otherEntry.getValue(), ids);
 			} else {
-				for (var otherPathEntry : otherMap.entrySet()) {
-					String otherPath = otherPathEntry.getKey();
-					TreeSet<Integer> otherPositions = otherPathEntry.getValue();
-					if (!thisMap.containsKey(otherPath)) {
-						thisMap.put(otherPath, new TreeSet<>(otherPositions));
-					} else {
-						TreeSet<Integer> existing = thisMap.get(otherPath);
-						existing.addAll(otherPositions);
-					}
+				Postings thisMap = new Postings();
+				int added = thisMap.addAll(otherEntry.getValue(), ids);
+				if (added > 0) {
+					newWords.add(otherWord);
+					newPostings.add(thisMap);
+					size += added;
+				}
+			}
+		}
+		for (int i = 0; i < newWords.size(); i++) {
+			invertedIndex.put(newWords.get(i), newPostings.get(i));
+		}
+	}
+
+	/**
+	 * Adds the postings of a segment that assigns document IDs from the same table
+	 * as this index, such as a loaded snapshot that is being updated. The word
+	 * counts are already in the table and are not added again.
+	 *
+	 * @param segment segment to add
+	 * @throws IllegalArgumentException if the segment uses a different table
+	 */
+	public void addSegment(IndexSnapshot segment) {
+		checkNotFrozen();
+		if (segment.getDocuments() != documents) {
+			throw new IllegalArgumentException("Segment uses a different document table.");
+		}
+		for (var entry : segment.entries()) {
+			var thisMap = invertedIndex.computeIfAbsent(entry.getKey(), k -> new Postings());
+			for (var posting : entry.getValue().entrySet()) {
+				PositionList existing = thisMap.putIfAbsent(posting.getKey(), posting.getValue());
+				if (existing == null) {
+					size += posting.getValue().size();
+				} else {
+					int before = existing.size();
+					existing.addAll(posting.getValue());
+					size += existing.size() - before;
+				}
+			}
+		}
+		advanceGeneration();
+	}
+
+	/**
+	 * Deletes the given documents by marking them with a tombstone in the document
+	 * table. Their postings are skipped by every search and purged by the next
+	 * {@link #compact()} or {@link #freeze()}, and adding a deleted location again
+	 * gives it a new document ID. Locations that are not in the index are ignored.
+	 *
+	 * @param locations locations to remove
+	 */
+	public void removeDocuments(Collection<String> locations) {
+		checkNotFrozen();
+		if (documents.delete(locations) > 0) {
+			advanceGeneration();
+		}
+	}
+
+	/**
+	 * deletes a single document, see {@link #removeDocuments(Collection)}
+	 *
+	 * @param location location to remove
+	 * @return true if the document was in the index
+	 */
+	public boolean deleteDocument(String location) {
+		checkNotFrozen();
+		if (documents.delete(List.of(location)) > 0) {
+			advanceGeneration();
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Replaces the documents of another index, such as a page that was crawled
+	 * again, by deleting the old versions and adding the new ones
+	 *
+	 * @param otherIndex index holding the new versions of the documents
+	 */
+	public void replaceDocuments(InvertedIndex otherIndex) {
+		removeDocuments(List.of(otherIndex.documents.getLocations()));
+		addDistinct(otherIndex);
+	}
+
+	/**
+	 * Physically removes the postings of deleted documents and any word left
+	 * without postings
+	 */
+	public void compact() {
+		checkNotFrozen();
+		if (documents.numDeleted() == 0) {
+			return;
+		}
+		var words = invertedIndex.values().iterator();
+		while (words.hasNext()) {
+			Postings locations = words.next();
+			var postings = locations.entrySet().iterator();
+			while (postings.hasNext()) {
+				var posting = postings.next();
+				if (documents.isDeleted(posting.getKey())) {
+					size -= posting.getValue().size();
+					postings.remove();
 				}
 			}
+			if (locations.isEmpty()) {
+				words.remove();
+			}
 		}
-		for (var otherCountEntry : otherIndex.counts.entrySet()) {
-			String path = otherCountEntry.getKey();
-			int otherCount = otherCountEntry.getValue();
-			this.counts.put(path, this.counts.getOrDefault(path, 0) + otherCount);
+	}
+
+	/**
+	 * checks if any document in the postings has not been deleted
+	 *
+	 * @param postings postings keyed by document ID, or null
+	 * @return true if there is a posting of a document that was not deleted
+	 */
+	private boolean hasLive(Postings postings) {
+		if (postings == null) {
+			return false;
 		}
+		for (int id : postings.keySet()) {
+			if (!documents.isDeleted(id)) {
+				return true;
+			}
+		}
+		return false;
 	}
 
 	/**
@@ -76,11 +434,13 @@ public class InvertedIndex {
 	 * @param place    integer place
 	 */
 	public void addIndex(String word, String filePath, int place) {
-		invertedIndex.putIfAbsent(word, new TreeMap<>());
-		invertedIndex.get(word).putIfAbsent(filePath, new TreeSet<>());
-		if (invertedIndex.get(word).get(filePath).add(place)) {
-			this.counts.putIfAbsent(filePath, 0);
-			this.counts.put(filePath, this.counts.get(filePath) + 1);
+		checkNotFrozen();
+		int id = documents.add(filePath);
+		if (invertedIndex.computeIfAbsent(word, k -> new Postings()).computeIfAbsent(id, k -> new PositionList())
+				.add(place)) {
+			documents.addCount(id, 1);
+			size++;
+			advanceGeneration();
 		}
 	}
 
@@ -89,7 +449,8 @@ public class InvertedIndex {
 	 */
 	@Override
 	public String toString() {
-		return invertedIndex.toString();
+		IndexSnapshot frozen = snapshot;
+		return frozen != null ? frozen.toString() : invertedIndex.toString();
 	}
 
 	/**
@@ -113,7 +474,8 @@ public class InvertedIndex {
 	 * @return true if count has a location
 	 */
 	public boolean hasCount(String location) {
-		return counts.containsKey(location);
+		int id = documents.getId(location);
+		return id >= 0 && documents.getCount(id) > 0;
 	}
 
 	/**
@@ -123,7 +485,11 @@ public class InvertedIndex {
 	 * @return true if word is present
 	 */
 	public boolean hasWord(String word) {
-		return invertedIndex.containsKey(word);
+		IndexSnapshot frozen = snapshot;
+		if (frozen != null) {
+			return frozen.hasWord(word);
+		}
+		return hasLive(invertedIndex.get(word));
 	}
 
 	/**
@@ -134,7 +500,7 @@ public class InvertedIndex {
 	 * @return true if location and word are present
 	 */
 	public boolean hasLocation(String word, String location) {
-		return invertedIndex.containsKey(word) && invertedIndex.get(word).containsKey(location);
+		return getPositionList(word, location) != null;
 	}
 
 	/**
@@ -146,7 +512,38 @@ public class InvertedIndex {
 	 * @return true if all are present
 	 */
 	public boolean hasPosition(String word, String location, int position) {
-		return hasLocation(word, location) && invertedIndex.get(word).get(location).contains(position);
+		PositionList positions = getPositionList(word, location);
+		return positions != null && positions.contains(position);
+	}
+
+	/**
+	 * returns the positions stored for a word and location, or null if there are
+	 * none
+	 * 
+	 * @param word     word to look
+	 * @param location location to look
+	 * @return the positions or null
+	 */
+	private PositionList getPositionList(String word, String location) {
+		int id = documents.getId(location);
+		return id < 0 ? null : getPositionList(word, id);
+	}
+
+	/**
+	 * returns the positions stored for a word and document ID, or null if there
+	 * are none
+	 *
+	 * @param word     word to look
+	 * @param document document ID to look
+	 * @return the positions or null
+	 */
+	protected PositionList getPositionList(String word, int document) {
+		IndexSnapshot frozen = snapshot;
+		if (frozen != null) {
+			return frozen.getPositionList(word, document);
+		}
+		Postings locations = invertedIndex.get(word);
+		return locations == null ? null : locations.get(document);
 	}
 
 	/**
@@ -156,7 +553,14 @@ public class InvertedIndex {
 	 * @throws IOException exception
 	 */
 	public void writeIndex(Path path) throws IOException {
-		JsonWriter.nested(this.invertedIndex, path);
+		try (BufferedWriter writer = Files.newBufferedWriter(path, UTF_8)) {
+			IndexSnapshot frozen = snapshot;
+			if (frozen != null) {
+				frozen.writeIndex(writer);
+			} else {
+				JsonWriter.nested(this.invertedIndex.entrySet(), this.documents, writer, 0);
+			}
+		}
 	}
 
 	/**
@@ -166,7 +570,7 @@ public class InvertedIndex {
 	 * @throws IOException exception thrown
 	 */
 	public void writeCounts(Path path) throws IOException {
-		JsonWriter.writeObject(this.counts, path);
+		JsonWriter.writeObject(getCounts(), path);
 	}
 
 	/**
@@ -175,6 +579,10 @@ public class InvertedIndex {
 	 * @return the number of words
 	 */
 	public int numWords() {
+		IndexSnapshot frozen = snapshot;
+		if (frozen != null) {
+			return frozen.numWords();
+		}
 		return getWords().size();
 	}
 
@@ -196,7 +604,8 @@ public class InvertedIndex {
 	 * @return positions number of positions
 	 */
 	public int numPositions(String word, String location) {
-		return getPositions(word, location).size();
+		PositionList positions = getPositionList(word, location);
+		return positions == null ? 0 : positions.size();
 	}
 
 	/**
@@ -206,6 +615,10 @@ public class InvertedIndex {
 	 * @return int paths
 	 */
 	public int numPaths(String word) {
+		IndexSnapshot frozen = snapshot;
+		if (frozen != null) {
+			return frozen.numPaths(word);
+		}
 		return getPaths(word).size();
 	}
 
@@ -215,6 +628,19 @@ public class InvertedIndex {
 	 * @return unmodifiable sorted set
 	 */
 	public SortedSet<String> getWords() {
+		IndexSnapshot frozen = snapshot;
+		if (frozen != null) {
+			return frozen.getWords();
+		}
+		if (documents.numDeleted() > 0) {
+			TreeSet<String> words = new TreeSet<>();
+			for (var entry : invertedIndex.entrySet()) {
+				if (hasLive(entry.getValue())) {
+					words.add(entry.getKey());
+				}
+			}
+			return Collections.unmodifiableSortedSet(words);
+		}
 		return Collections.unmodifiableSortedSet(invertedIndex.navigableKeySet());
 	}
 
@@ -226,11 +652,7 @@ public class InvertedIndex {
 	 * @return unmodifiable sorted set
 	 */
 	public SortedSet<String> getPaths(String word) {
-		if (hasWord(word)) {
-			return Collections.unmodifiableSortedSet(invertedIndex.get(word).navigableKeySet());
-		} else {
-			return Collections.emptySortedSet();
-		}
+		return getLocation(word);
 	}
 
 	/**
@@ -242,18 +664,27 @@ public class InvertedIndex {
 	 * @return unmodifiable sorted set
 	 */
 	public SortedSet<Integer> getPositions(String word, String location) {
-		if (hasLocation(word, location)) {
-			return Collections.unmodifiableSortedSet(invertedIndex.get(word).get(location));
+		PositionList positions = getPositionList(word, location);
+		if (positions != null) {
+			return Collections.unmodifiableSortedSet(new TreeSet<>(positions));
 		}
 		return Collections.emptySortedSet();
 	}
 
 	/**
-	 * returns unmodifiable sorted map of the counts
+	 * returns unmodifiable sorted map of the counts, keyed by location
 	 * 
 	 * @return unmodifiable sorted map
 	 */
 	public SortedMap<String, Integer> getCounts() {
+		TreeMap<String, Integer> counts = new TreeMap<>();
+		String[] locations = documents.getLocations();
+		for (int id = 0; id < locations.length; id++) {
+			int count = documents.getCount(id);
+			if (count > 0 && !documents.isDeleted(id)) {
+				counts.put(locations[id], count);
+			}
+		}
 		return Collections.unmodifiableSortedMap(counts);
 	}
 
@@ -264,15 +695,82 @@ public class InvertedIndex {
 	 * @return sorted set of locations
 	 */
 	public SortedSet<String> getLocation(String word) {
-		TreeMap<String, TreeSet<Integer>> location;
+		IndexSnapshot frozen = snapshot;
+		if (frozen != null) {
+			return frozen.getLocation(word);
+		}
+		Postings location;
 		location = this.invertedIndex.get(word);
 		if (location != null) {
-			return Collections.unmodifiableSortedSet(location.navigableKeySet());
+			TreeSet<String> paths = new TreeSet<>();
+			for (int id : location.keySet()) {
+				if (!documents.isDeleted(id)) {
+					paths.add(documents.getLocation(id));
+				}
+			}
+			return Collections.unmodifiableSortedSet(paths);
 		} else {
 			return Collections.emptySortedSet();
 		}
 	}
 
+	/**
+	 * Checks if a query word is a phrase, which is stored as its stemmed words
+	 * joined by single spaces. Words never contain spaces, so any query word with
+	 * a space is a phrase.
+	 *
+	 * @param word query word to check
+	 * @return true if the word is a phrase
+	 */
+	public static boolean isPhrase(String word) {
+		return word.indexOf(' ') >= 0;
+	}
+
+	/**
+	 * returns the words of a phrase in order
+	 *
+	 * @param phrase the phrase
+	 * @return words of the phrase
+	 */
+	public static String[] phraseWords(String phrase) {
+		return phrase.split(" ");
+	}
+
+	/**
+	 * Sets the scorer used to rank search results. The norms of a frozen index are
+	 * computed right away, so the first search does not pay for them.
+	 *
+	 * @param scorer the scorer, or null for the default score of matches divided
+	 *               by the number of words in the document
+	 */
+	public void setScorer(Scorer scorer) {
+		this.scorer = scorer;
+		IndexSnapshot frozen = snapshot;
+		if (frozen != null) {
+			frozen.scoring(scorer);
+		}
+	}
+
+	/**
+	 * returns the scorer used to rank search results
+	 *
+	 * @return the scorer, or null for the default score
+	 */
+	public Scorer getScorer() {
+		return scorer;
+	}
+
+	/**
+	 * Returns the statistics used to score a search of the index while it is still
+	 * being built, read from the document table in constant time
+	 *
+	 * @return the statistics, or null if there is no scorer
+	 */
+	protected ScoreContext scoring() {
+		Scorer current = scorer;
+		return current == null ? null : new ScoreContext(current, documents, documents::getCount);
+	}
+
 	/**
 	 * A convenience method to choose between exact and partial search
 	 *
@@ -284,6 +782,156 @@ public class InvertedIndex {
 		return partial ? searchPartial(queries) : exactSearch(queries);
 	}
 
+	/**
+	 * A convenience method to choose between exact and partial search, and
+	 * between matching any or every query word
+	 *
+	 * @param queries The set of queries
+	 * @param partial If true does partial search. If false does exact search
+	 * @param and     If true only returns documents that match every query
+	 * @return The search results as a list.
+	 */
+	public ArrayList<SearchResult> search(Set<String> queries, boolean partial, boolean and) {
+		return search(queries, partial, and, TopResults.ALL);
+	}
+
+	/**
+	 * Searches the index and returns only the best results. The results are
+	 * selected with a bounded heap instead of sorting all of them, and every
+	 * document is added to the heap as soon as it is scored. A search for any of
+	 * the words skips the documents whose best possible score cannot make it into
+	 * the heap, see {@link PostingCursor#rank}. The prefixes of a partial search
+	 * are expanded and merged only once per generation, see {@link PrefixCache}.
+	 * Words with wildcards match every word of their {@link WildcardPattern} in
+	 * either search.
+	 *
+	 * @param queries The set of queries
+	 * @param partial If true does partial search. If false does exact search
+	 * @param and     If true only returns documents that match every query
+	 * @param limit   maximum number of results, or {@link TopResults#ALL}
+	 * @return The best search results as a list.
+	 */
+	public ArrayList<SearchResult> search(Set<String> queries, boolean partial, boolean and, int limit) {
+		IndexSnapshot frozen = snapshot;
+		ScoreContext scoring = frozen != null ? frozen.scoring(scorer) : scoring();
+		IntUnaryOperator totals = frozen != null ? frozen::getTotal : documents::getCount;
+		List<List<PostingCursor>> cursors = partial ? prefixes(queries, totals, scoring, and)
+				: counted(cursors(queries, false), scoring);
+		return collect(cursors, and, totals, scoring, limit);
+	}
+
+	/**
+	 * Searches the index for the terms within an edit distance of each word, so a
+	 * misspelled word still finds the documents of the words it was meant to be.
+	 * Every accepted term counts as a match of the word, like the terms a prefix
+	 * expands to in a partial search. Phrases and words with wildcards are matched
+	 * as in any other search.
+	 *
+	 * @param queries  The set of queries
+	 * @param distance largest number of single character edits, at most
+	 *                 {@value LevenshteinAutomaton#MAX_DISTANCE}
+	 * @param and      If true only returns documents that match every query
+	 * @param limit    maximum number of results, or {@link TopResults#ALL}
+	 * @return The best search results as a list.
+	 * @throws IllegalArgumentException if the distance is not supported
+	 */
+	public ArrayList<SearchResult> fuzzySearch(Set<String> queries, int distance, boolean and, int limit) {
+		IndexSnapshot frozen = snapshot;
+		ScoreContext scoring = frozen != null ? frozen.scoring(scorer) : scoring();
+		IntUnaryOperator totals = frozen != null ? frozen::getTotal : documents::getCount;
+		return collect(counted(fuzzyCursors(queries, distance), scoring), and, totals, scoring, limit);
+	}
+
+	/**
+	 * Counts the document frequency of every term across the segments, or across
+	 * the live postings of the maps, before a scored search, see
+	 * {@link PostingCursor#countDocuments}. The postings of a frozen snapshot hold
+	 * every live document of a term exactly once, so its cursors already know.
+	 *
+	 * @param cursors cursors of each word
+	 * @param scoring statistics of the scorer, or null for the default score
+	 * @return the cursors
+	 */
+	private List<List<PostingCursor>> counted(List<List<PostingCursor>> cursors, ScoreContext scoring) {
+		if (scoring != null && snapshot == null) {
+			PostingCursor.countDocuments(cursors, documents);
+		}
+		return cursors;
+	}
+
+	/**
+	 * collects the best documents matching any or every word
+	 *
+	 * @param cursors cursors of each word
+	 * @param and     whether results must match every word
+	 * @param totals  word count of each document ID
+	 * @param scoring statistics of the scorer, or null for the default score
+	 * @param limit   maximum number of results, or {@link TopResults#ALL}
+	 * @return sorted list of search results
+	 */
+	private ArrayList<SearchResult> collect(List<List<PostingCursor>> cursors, boolean and, IntUnaryOperator totals,
+			ScoreContext scoring, int limit) {
+		TopResults top = new TopResults(limit);
+		if (and) {
+			PostingCursor.intersect(cursors, documents, totals, scoring, top);
+		} else {
+			PostingCursor.rank(cursors, documents, totals, scoring, top);
+		}
+		return top.toList();
+	}
+
+	/**
+	 * Returns the cursors of the words of a partial search, with a single cursor
+	 * over the merged postings of each prefix. Merged postings are looked up in the
+	 * prefix cache first, and only the prefixes that are missing are expanded,
+	 * merged and cached. The generation is read before expanding, so cached
+	 * postings are never older than their generation. Phrases are not prefixes
+	 * and are searched as usual.
+	 *
+	 * A conjunctive search gallops through the postings of each word and rarely
+	 * reads most of them, so a missing prefix that expands to no more than
+	 * {@value PostingCursor#MAX_CURSORS} terms keeps a lazy cursor per term
+	 * instead of being merged. Only wider prefixes, which the intersection would
+	 * merge anyway, are merged and cached.
+	 *
+	 * @param words   words to search
+	 * @param totals  word count of each document ID
+	 * @param scoring statistics of the scorer, or null for the default score
+	 * @param and     whether results must match every word
+	 * @return cursors of each word
+	 */
+	private List<List<PostingCursor>> prefixes(Set<String> words, IntUnaryOperator totals, ScoreContext scoring,
+			boolean and) {
+		long current = getGeneration();
+		Scorer merged = scoring != null ? scoring.getScorer() : null;
+		List<MergedPostings> cached = new ArrayList<>();
+		Set<String> missing = new LinkedHashSet<>();
+		for (String word : words) {
+			MergedPostings postings = isPhrase(word) ? null : prefixes.get(word, current, merged);
+			cached.add(postings);
+			if (postings == null) {
+				missing.add(word);
+			}
+		}
+		Iterator<List<PostingCursor>> expanded = counted(cursors(missing, true), scoring).iterator();
+		List<List<PostingCursor>> cursors = new ArrayList<>();
+		int i = 0;
+		for (String word : words) {
+			MergedPostings postings = cached.get(i++);
+			if (postings == null) {
+				List<PostingCursor> wordCursors = expanded.next();
+				if (isPhrase(word) || (and && wordCursors.size() <= PostingCursor.MAX_CURSORS)) {
+					cursors.add(wordCursors);
+					continue;
+				}
+				postings = MergedPostings.merge(wordCursors, documents, totals, scoring);
+				prefixes.put(word, postings, current, merged);
+			}
+			cursors.add(List.of(postings.cursor()));
+		}
+		return cursors;
+	}
+
 	/**
 	 * does exact search on given query words set
 	 * 
@@ -291,13 +939,7 @@ public class InvertedIndex {
 	 * @return set of search results matching query words
 	 */
 	public ArrayList<SearchResult> exactSearch(Set<String> queries) {
-		ArrayList<SearchResult> searchResults = new ArrayList<>();
-		Map<String, SearchResult> lookup = new HashMap<>();
-		for (String query : queries) {
-			processWord(query, lookup, searchResults);
-		}
-		Collections.sort(searchResults);
-		return searchResults;
+		return search(queries, false, false, TopResults.ALL);
 	}
 
 	/**
@@ -307,53 +949,175 @@ public class InvertedIndex {
 	 * @return list of search results
 	 */
 	public ArrayList<SearchResult> searchPartial(Set<String> words) {
-		ArrayList<SearchResult> searchResult = new ArrayList<>();
-		Map<String, SearchResult> lookup = new HashMap<>();
-		for (String begin : words) {
-			SortedMap<String, TreeMap<String, TreeSet<Integer>>> tailMap = invertedIndex.tailMap(begin);
-			for (Map.Entry<String, TreeMap<String, TreeSet<Integer>>> entry : tailMap.entrySet()) {
-				String word = entry.getKey();
-				if (!word.startsWith(begin)) {
+		return search(words, true, false, TopResults.ALL);
+	}
+
+	/**
+	 * Does conjunctive search, returning only the documents that match every word.
+	 * The posting lists are intersected starting from the word with the fewest
+	 * postings, skipping through the others with a galloping search.
+	 *
+	 * @param words   words to search
+	 * @param partial whether words are prefixes
+	 * @return list of search results
+	 */
+	public ArrayList<SearchResult> conjunctiveSearch(Set<String> words, boolean partial) {
+		return search(words, partial, true, TopResults.ALL);
+	}
+
+	/**
+	 * Returns cursors over the postings of the words, with a list of cursors for
+	 * each word that holds one cursor for every matching word in the index
+	 *
+	 * @param words   words to search
+	 * @param partial whether words are prefixes
+	 * @return cursors of each word
+	 */
+	protected List<List<PostingCursor>> cursors(Set<String> words, boolean partial) {
+		IndexSnapshot frozen = snapshot;
+		List<List<PostingCursor>> cursors = new ArrayList<>();
+		for (String word : words) {
+			List<PostingCursor> wordCursors = new ArrayList<>();
+			cursors(frozen, word, partial, wordCursors);
+			cursors.add(wordCursors);
+		}
+		return cursors;
+	}
+
+	/**
+	 * Adds a cursor over the postings of every word matching a word, from the
+	 * snapshot if the index is frozen and from the maps otherwise. A word with
+	 * wildcards is matched as a {@link WildcardPattern}. The maps have no
+	 * indexes for wildcards, so they walk the words starting with the prefix of
+	 * the pattern, which is every word if the pattern starts with a wildcard.
+	 *
+	 * @param frozen  snapshot of the index, or null if not frozen
+	 * @param begin   word to search
+	 * @param partial whether the word is a prefix
+	 * @param cursors list to add the cursors to
+	 */
+	private void cursors(IndexSnapshot frozen, String begin, boolean partial, List<PostingCursor> cursors) {
+		if (frozen != null) {
+			frozen.cursors(begin, partial, cursors);
+			return;
+		}
+		if (isPhrase(begin)) {
+			PostingCursor matches = phrase(begin);
+			if (matches.remaining() > 0) {
+				cursors.add(matches);
+			}
+			return;
+		}
+		if (WildcardPattern.isWildcard(begin)) {
+			WildcardPattern pattern = new WildcardPattern(begin);
+			for (Map.Entry<String, Postings> entry : invertedIndex.tailMap(pattern.getPrefix()).entrySet()) {
+				if (!entry.getKey().startsWith(pattern.getPrefix())) {
 					break;
 				}
-				processWord(word, lookup, searchResult);
+				if (pattern.matches(entry.getKey())) {
+					cursors.add(entry.getValue().cursor());
+				}
+			}
+			return;
+		}
+		SortedMap<String, Postings> matches = partial ? invertedIndex.tailMap(begin)
+				: invertedIndex.subMap(begin, true, begin, true);
+		for (Map.Entry<String, Postings> entry : matches.entrySet()) {
+			if (!entry.getKey().startsWith(begin)) {
+				break;
 			}
+			cursors.add(entry.getValue().cursor());
 		}
-		Collections.sort(searchResult);
-		return searchResult;
 	}
 
 	/**
-	 * Processes the word and updates the search results based on its occurrences in
-	 * the inverted index
-	 * 
-	 * @param word          word to process
-	 * @param lookup        map
-	 * @param searchResults searchResults list
+	 * Returns cursors over the postings of the terms within an edit distance of
+	 * each word. The sorted words of the index are walked with a Levenshtein
+	 * automaton: as soon as a prefix of a word can no longer be completed into a
+	 * match, the walk skips ahead past every word starting with that prefix.
+	 * Phrases and words with wildcards are matched as usual.
+	 *
+	 * @param words    words to search
+	 * @param distance largest number of single character edits
+	 * @return cursors of each word
+	 * @throws IllegalArgumentException if the distance is not supported
 	 */
-	private void processWord(String word, Map<String, SearchResult> lookup, List<SearchResult> searchResults) {
-		TreeMap<String, TreeSet<Integer>> locations = invertedIndex.get(word);
-		if (locations == null)
-			return;
-		for (Map.Entry<String, TreeSet<Integer>> locationEntry : locations.entrySet()) {
-			String location = locationEntry.getKey();
-			if (lookup.containsKey(location)) {
-				SearchResult oldResult = lookup.get(location);
-				oldResult.update(locationEntry.getValue().size());
+	protected List<List<PostingCursor>> fuzzyCursors(Set<String> words, int distance) {
+		IndexSnapshot frozen = snapshot;
+		List<List<PostingCursor>> cursors = new ArrayList<>();
+		for (String word : words) {
+			List<PostingCursor> wordCursors = new ArrayList<>();
+			if (isPhrase(word) || WildcardPattern.isWildcard(word)) {
+				cursors(frozen, word, false, wordCursors);
+			} else if (frozen != null) {
+				frozen.cursors(new LevenshteinAutomaton(word, distance), wordCursors);
 			} else {
-				SearchResult result = new SearchResult(location);
-				result.update(locationEntry.getValue().size());
-				searchResults.add(result);
-				lookup.put(location, result);
+				fuzzyCursors(new LevenshteinAutomaton(word, distance), wordCursors);
 			}
+			cursors.add(wordCursors);
 		}
+		return cursors;
+	}
+
+	/**
+	 * adds a cursor over the postings of every word in the maps accepted by a
+	 * Levenshtein automaton
+	 *
+	 * @param automaton automaton accepting the words within an edit distance
+	 * @param cursors   list to add the cursors to
+	 */
+	private void fuzzyCursors(LevenshteinAutomaton automaton, List<PostingCursor> cursors) {
+		Map.Entry<String, Postings> entry = invertedIndex.firstEntry();
+		while (entry != null) {
+			String word = entry.getKey();
+			int[] state = automaton.start();
+			int[] next = new int[state.length];
+			int dead = -1;
+			for (int i = 0; i < word.length() && dead < 0; i++) {
+				if (automaton.step(state, word.charAt(i), next)) {
+					int[] swap = state;
+					state = next;
+					next = swap;
+				} else {
+					dead = i;
+				}
+			}
+			if (dead < 0 || word.charAt(dead) == Character.MAX_VALUE) {
+				if (dead < 0 && automaton.isMatch(state)) {
+					cursors.add(entry.getValue().cursor());
+				}
+				entry = invertedIndex.higherEntry(word);
+			} else {
+				entry = invertedIndex.ceilingEntry(word.substring(0, dead) + (char) (word.charAt(dead) + 1));
+			}
+		}
+	}
+
+	/**
+	 * returns a cursor over the documents that contain a phrase
+	 *
+	 * @param phrase the phrase
+	 * @return cursor over the matching documents, with the number of times the
+	 *         phrase occurs as frequency
+	 */
+	private PostingCursor phrase(String phrase) {
+		List<PostingCursor> words = new ArrayList<>();
+		for (String word : phraseWords(phrase)) {
+			Postings postings = invertedIndex.get(word);
+			if (postings == null) {
+				return PostingCursor.phrase(phrase, List.of());
+			}
+			words.add(postings.cursor());
+		}
+		return PostingCursor.phrase(phrase, words);
 	}
 
 	/**
 	 * Nested class that provides methods to get and set as well as a method to
-	 * compare two 'SearchResult' objects
+	 * compare two 'SearchResult' objects. Results refer to their document by ID and
+	 * only resolve the location through the document table when rendered.
 	 */
-	public class SearchResult implements Comparable<SearchResult> {
+	public static class SearchResult implements Comparable<SearchResult> {
 		/**
 		 * initialize
 		 * 
@@ -365,20 +1129,48 @@ public class InvertedIndex {
 		 */
 		private double score;
 		/**
-		 * initialize
-		 * 
+		 * document ID of the result
 		 */
-		private final String where;
+		private final int document;
+		/**
+		 * total word count of the document
+		 */
+		private final int total;
+		/**
+		 * table used to resolve the document location
+		 */
+		private final DocumentTable documents;
 
 		/**
 		 * constructor
 		 * 
-		 * @param where location where search query method
+		 * @param documents table used to resolve the location
+		 * @param document  document ID of the result
+		 * @param total     total word count of the document
 		 */
-		public SearchResult(String where) {
+		public SearchResult(DocumentTable documents, int document, int total) {
 			this.count = 0;
-			this.where = where;
-			this.score = (double) counts.get(where);
+			this.score = 0;
+			this.document = document;
+			this.total = total;
+			this.documents = documents;
+		}
+
+		/**
+		 * constructor for a result whose matches were already added up
+		 * 
+		 * @param documents table used to resolve the location
+		 * @param document  document ID of the result
+		 * @param total     total word count of the document
+		 * @param count     number of matches
+		 * @param score     score of the matches
+		 */
+		SearchResult(DocumentTable documents, int document, int total, int count, double score) {
+			this.count = count;
+			this.score = score;
+			this.document = document;
+			this.total = total;
+			this.documents = documents;
 		}
 
 		/**
@@ -400,12 +1192,21 @@ public class InvertedIndex {
 		}
 
 		/**
-		 * get the location
+		 * get the document ID
+		 * 
+		 * @return document ID
+		 */
+		public int getDocument() {
+			return document;
+		}
+
+		/**
+		 * get the location, resolved through the document table
 		 * 
 		 * @return where
 		 */
 		public String getWhere() {
-			return where;
+			return documents.getLocation(document);
 		}
 
 		/**
@@ -413,9 +1214,26 @@ public class InvertedIndex {
 		 *
 		 * @param amount amount to add
 		 */
-		private void update(int amount) {
+		void update(int amount) {
 			this.count += amount;
-			this.score = (double) count / counts.get(where);
+			this.score = (double) count / total;
+		}
+
+		/**
+		 * Update count and adds the score of a posting, or recalculates the default
+		 * score if there is no scorer
+		 *
+		 * @param cursor  cursor on the matching posting
+		 * @param scoring statistics of the scorer, or null for the default score
+		 * @param weight  weight of the matching word
+		 */
+		void update(PostingCursor cursor, ScoreContext scoring, double weight) {
+			if (scoring == null) {
+				update(cursor.frequency());
+				return;
+			}
+			this.count += cursor.frequency();
+			this.score += cursor.score(scoring, weight);
 		}
 
 		/**
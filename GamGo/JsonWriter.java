@@ -12,6 +12,7 @@ import java.nio.file.Path;
 import java.text.DecimalFormat;
 import java.util.Collection;
 import java.util.Map;
+import java.util.TreeMap;
 
 /**
  * Outputs several simple data structures in "pretty" JSON format where newlines
@@ -53,7 +54,7 @@ public class JsonWriter {
 
 	/**
 	 * Indents and then writes the text element surrounded by {@code " "} quotation
-	 * marks.
+	 * marks, escaping any quotation marks and backslashes in the element.
 	 *
 	 * @param element the element to write
 	 * @param writer  the writer to use
@@ -63,7 +64,11 @@ public class JsonWriter {
 	public static void writeQuote(String element, Writer writer, int indent) throws IOException {
 		writeIndent(writer, indent);
 		writer.write('"');
-		writer.write(element);
+		if (element.indexOf('"') < 0 && element.indexOf('\\') < 0) {
+			writer.write(element);
+		} else {
+			writer.write(element.replace("\\", "\\\\").replace("\"", "\\\""));
+		}
 		writer.write('"');
 	}
 
@@ -382,6 +387,45 @@ public class JsonWriter {
 		}
 	}
 
+	/**
+	 * Encodes a nested map keyed by document ID into Json format, resolving each
+	 * document ID to its location through the document table so that the inner
+	 * objects are written in location order. Deleted documents are left out, as
+	 * are words without any other documents.
+	 *
+	 * @param elements  the sorted entries of the nested map keyed by document ID
+	 * @param documents the document table used to resolve locations
+	 * @param writer    writer to write data
+	 * @param indent    number of spaces for indentation
+	 * @throws IOException error if occurs
+	 */
+	public static void nested(
+			Iterable<? extends Map.Entry<String, ? extends Map<Integer, ? extends Collection<? extends Number>>>> elements,
+			DocumentTable documents, Writer writer, int indent) throws IOException {
+		writer.write("{");
+		String separateWith = "\n";
+		for (var out : elements) {
+			TreeMap<String, Collection<? extends Number>> resolved = new TreeMap<>();
+			for (var inner : out.getValue().entrySet()) {
+				if (!documents.isDeleted(inner.getKey())) {
+					resolved.put(documents.getLocation(inner.getKey()), inner.getValue());
+				}
+			}
+			if (resolved.isEmpty()) {
+				continue;
+			}
+			writer.write(separateWith);
+			writeIndent(writer, indent + 1);
+			writeQuote(out.getKey(), writer, 0);
+			writer.write(": ");
+			writeObjectArrays(resolved, writer, indent + 1);
+			separateWith = ",\n";
+		}
+		writer.write("\n");
+		writeIndent(writer, indent);
+		writer.write("}");
+	}
+
 	/**
 	 * initialize
 	 */
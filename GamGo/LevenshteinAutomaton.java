@@ -0,0 +1,134 @@
+package GamGo;
+
+/**
+ * Automaton that accepts every term within an edit distance of a word, where
+ * an edit inserts, deletes or replaces a single character. A state is the row
+ * of the edit distance table after reading a prefix of a term, with every
+ * distance above the bound capped, so the states of a prefix are computed once
+ * and shared by every term that starts with it. Once every distance of a state
+ * is over the bound, no term starting with the prefix can be accepted, and a
+ * sorted dictionary can skip all of them at once, see
+ * {@link TermDictionary#fuzzy(LevenshteinAutomaton)}.
+ */
+public class LevenshteinAutomaton {
+	/**
+	 * largest supported edit distance, above which almost every short term is
+	 * accepted and the dictionary can no longer be skipped through
+	 */
+	public static final int MAX_DISTANCE = 2;
+	/**
+	 * the word terms are compared to
+	 */
+	private final String word;
+	/**
+	 * largest accepted edit distance
+	 */
+	private final int distance;
+
+	/**
+	 * initialize new instance
+	 *
+	 * @param word     the word terms are compared to
+	 * @param distance largest accepted edit distance
+	 * @throws IllegalArgumentException if the distance is negative or over
+	 *                                  {@value #MAX_DISTANCE}
+	 */
+	public LevenshteinAutomaton(String word, int distance) {
+		if (distance < 0 || distance > MAX_DISTANCE) {
+			throw new IllegalArgumentException("Distance must be between 0 and " + MAX_DISTANCE + ": " + distance);
+		}
+		this.word = word;
+		this.distance = distance;
+	}
+
+	/**
+	 * returns the state before reading any character
+	 *
+	 * @return the start state
+	 */
+	public int[] start() {
+		int[] state = new int[word.length() + 1];
+		for (int i = 0; i < state.length; i++) {
+			state[i] = Math.min(i, distance + 1);
+		}
+		return state;
+	}
+
+	/**
+	 * Computes the state after reading one more character of a term into a
+	 * given array, so walking a dictionary can reuse one array per depth
+	 *
+	 * @param state current state, which is left unchanged
+	 * @param next  character read
+	 * @param into  array of the same length to write the next state to
+	 * @return true if a term read up to the next state can still be accepted once
+	 *         more characters are read
+	 */
+	public boolean step(int[] state, char next, int[] into) {
+		int bound = distance + 1;
+		int best = into[0] = Math.min(state[0] + 1, bound);
+		for (int i = 1; i < state.length; i++) {
+			int replace = state[i - 1] + (word.charAt(i - 1) == next ? 0 : 1);
+			int edits = Math.min(replace, Math.min(state[i], into[i - 1]) + 1);
+			into[i] = Math.min(edits, bound);
+			best = Math.min(best, into[i]);
+		}
+		return best <= distance;
+	}
+
+	/**
+	 * checks if a term that ends at a state is accepted
+	 *
+	 * @param state the state
+	 * @return true if the term is within the edit distance of the word
+	 */
+	public boolean isMatch(int[] state) {
+		return state[state.length - 1] <= distance;
+	}
+
+	/**
+	 * checks if a term is within the edit distance of the word
+	 *
+	 * @param term the term
+	 * @return true if accepted
+	 */
+	public boolean matches(String term) {
+		int[] state = start();
+		int[] next = new int[state.length];
+		for (int i = 0; i < term.length(); i++) {
+			if (!step(state, term.charAt(i), next)) {
+				return false;
+			}
+			int[] swap = state;
+			state = next;
+			next = swap;
+		}
+		return isMatch(state);
+	}
+
+	/**
+	 * returns the word terms are compared to
+	 *
+	 * @return the word
+	 */
+	public String getWord() {
+		return word;
+	}
+
+	/**
+	 * returns the largest accepted edit distance
+	 *
+	 * @return the distance
+	 */
+	public int getDistance() {
+		return distance;
+	}
+
+	/**
+	 * to string method
+	 */
+	@Override
+	public String toString() {
+		return "LevenshteinAutomaton[word=" + word + ", distance=" + distance + "]";
+	}
+}
@@ -0,0 +1,170 @@
+package GamGo;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Thread-local indexes shared by the tasks of a single indexing run. Every
+ * worker thread keeps its own list of segments across many tasks, so nothing
+ * is published to the shared index and no lock is taken until all tasks are
+ * done. Each worker merges its own segments like a binary counter, keeping its
+ * list logarithmic in size. At the end the segments of every worker are
+ * combined pairwise in parallel like a tree, so combining n segments takes log
+ * n rounds instead of n merges into one shared index.
+ *
+ * Segments take their document IDs from the shared document table, so
+ * documents are registered as soon as a task adds them, but their postings are
+ * only searchable once the reduced segment is added to the index. An instance
+ * can be used for many indexing runs, each ending with
+ * {@link #reduce(WorkQueue)}.
+ */
+public class LocalIndexes {
+	/**
+	 * shared document table
+	 */
+	private final DocumentTable documents;
+	/**
+	 * segments of the current thread
+	 */
+	private final ThreadLocal<List<IndexSnapshot>> local;
+	/**
+	 * segment lists of every thread
+	 */
+	private final List<List<IndexSnapshot>> lists;
+
+	/**
+	 * initialize new instance
+	 *
+	 * @param documents the shared document table
+	 */
+	public LocalIndexes(DocumentTable documents) {
+		this.documents = documents;
+		this.lists = new ArrayList<>();
+		this.local = ThreadLocal.withInitial(() -> {
+			List<IndexSnapshot> list = new ArrayList<>();
+			synchronized (lists) {
+				lists.add(list);
+			}
+			return list;
+		});
+	}
+
+	/**
+	 * Adds a local index to the segments of the current thread. Whenever the last
+	 * {@value ThreadedInvertedIndex#MERGE_FACTOR} segments are of similar size they
+	 * are merged into one, so every position is only merged a logarithmic number
+	 * of times.
+	 *
+	 * @param index index built by the current thread
+	 */
+	public void add(InvertedIndex index) {
+		IndexSnapshot segment = ThreadedInvertedIndex.toSegment(index, documents);
+		if (segment == null) {
+			return;
+		}
+		List<IndexSnapshot> list = local.get();
+		list.add(segment);
+		int factor = ThreadedInvertedIndex.MERGE_FACTOR;
+		while (list.size() >= factor) {
+			List<IndexSnapshot> last = list.subList(list.size() - factor, list.size());
+			if (last.get(0).size() > last.get(factor - 1).size() * (long) factor) {
+				break;
+			}
+			IndexSnapshot merged = IndexSnapshot.merge(last, documents, false);
+			last.clear();
+			list.add(merged);
+		}
+	}
+
+	/**
+	 * returns the number of threads holding segments that were not reduced yet
+	 *
+	 * @return number of threads
+	 */
+	public int size() {
+		synchronized (lists) {
+			int size = 0;
+			for (List<IndexSnapshot> list : lists) {
+				if (!list.isEmpty()) {
+					size++;
+				}
+			}
+			return size;
+		}
+	}
+
+	/**
+	 * Combines the segments of every thread into one. The segments of each thread
+	 * are first merged into one by a task per thread, then in each round the
+	 * results are paired up and every pair is merged by its own task, halving the
+	 * number of segments. Must be called after every task that adds segments has
+	 * finished, and not from a worker of the work queue. The lists of the threads
+	 * are emptied but stay registered, so an instance can be reduced again after
+	 * more segments were added, and returns only those.
+	 *
+	 * @param workqueue work queue used to merge pairs, or null to merge in the
+	 *                  calling thread
+	 * @return the combined segment, or null if nothing was added
+	 */
+	public IndexSnapshot reduce(WorkQueue workqueue) {
+		List<List<IndexSnapshot>> threads = new ArrayList<>();
+		synchronized (lists) {
+			for (List<IndexSnapshot> list : lists) {
+				if (!list.isEmpty()) {
+					threads.add(new ArrayList<>(list));
+					list.clear();
+				}
+			}
+		}
+		IndexSnapshot[] combined = new IndexSnapshot[threads.size()];
+		for (int i = 0; i < combined.length; i++) {
+			int index = i;
+			List<IndexSnapshot> list = threads.get(i);
+			run(workqueue, () -> combined[index] = list.size() == 1 ? list.get(0)
+					: IndexSnapshot.merge(list, documents, false));
+		}
+		if (workqueue != null) {
+			workqueue.finish();
+		}
+		List<IndexSnapshot> remaining = new ArrayList<>();
+		for (IndexSnapshot segment : combined) {
+			if (segment != null) {
+				remaining.add(segment);
+			}
+		}
+		if (remaining.isEmpty()) {
+			return null;
+		}
+		while (remaining.size() > 1) {
+			int pairs = remaining.size() / 2;
+			IndexSnapshot[] merged = new IndexSnapshot[pairs + remaining.size() % 2];
+			for (int i = 0; i < pairs; i++) {
+				int index = i;
+				List<IndexSnapshot> pair = remaining.subList(2 * i, 2 * i + 2);
+				run(workqueue, () -> merged[index] = IndexSnapshot.merge(pair, documents, false));
+			}
+			if (merged.length > pairs) {
+				merged[pairs] = remaining.get(remaining.size() - 1);
+			}
+			if (workqueue != null) {
+				workqueue.finish();
+			}
+			remaining = List.of(merged);
+		}
+		return remaining.get(0);
+	}
+
+	/**
+	 * runs a task on the work queue, or in the calling thread if there is none
+	 *
+	 * @param workqueue work queue to use, or null
+	 * @param task      task to run
+	 */
+	private static void run(WorkQueue workqueue, Runnable task) {
+		if (workqueue != null) {
+			workqueue.execute(task);
+		} else {
+			task.run();
+		}
+	}
+}
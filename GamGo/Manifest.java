@@ -0,0 +1,311 @@
+package GamGo;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Manifest of the indexed text files, storing the size, last modified time and
+ * content hash of every file. Comparing the manifest with the files on disk
+ * tells which files were added, modified or deleted since the last run, so only
+ * those need to be indexed again. A file whose size and modified time did not
+ * change is assumed unchanged without reading it, and a file that was only
+ * touched is recognized by its hash.
+ *
+ * The manifest is stored as a text file with one line per file: size, modified
+ * time in milliseconds, SHA-256 hash and location, separated by tabs.
+ *
+ * A file that has to be indexed again is only recorded once it was indexed,
+ * see {@link #commit(Changes, Path)}, so a file that failed to be read is
+ * indexed again by the next run instead of being skipped. Committing and
+ * writing are synchronized, so files can be committed from many threads.
+ */
+public class Manifest {
+	/**
+	 * entries keyed by location
+	 */
+	private final TreeMap<String, Entry> entries;
+
+	/**
+	 * initialize new empty instance
+	 */
+	public Manifest() {
+		this.entries = new TreeMap<>();
+	}
+
+	/**
+	 * reads a manifest written by {@link #write(Path)}
+	 *
+	 * @param path path to read
+	 * @return the manifest
+	 * @throws IOException if the file cannot be read or a line is malformed
+	 */
+	public static Manifest read(Path path) throws IOException {
+		Manifest manifest = new Manifest();
+		try (BufferedReader reader = Files.newBufferedReader(path, UTF_8)) {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				if (line.isBlank()) {
+					continue;
+				}
+				String[] parts = line.split("\t", 4);
+				try {
+					manifest.entries.put(parts[3],
+							new Entry(Long.parseLong(parts[0]), Long.parseLong(parts[1]), parts[2]));
+				} catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+					throw new IOException("Malformed manifest line: " + line);
+				}
+			}
+		}
+		return manifest;
+	}
+
+	/**
+	 * writes the manifest
+	 *
+	 * @param path path to write to
+	 * @throws IOException exception thrown
+	 */
+	public synchronized void write(Path path) throws IOException {
+		try (BufferedWriter writer = Files.newBufferedWriter(path, UTF_8)) {
+			for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+				Entry value = entry.getValue();
+				writer.write(value.size + "\t" + value.modified + "\t" + value.hash + "\t" + entry.getKey());
+				writer.newLine();
+			}
+		}
+	}
+
+	/**
+	 * Compares the manifest with the current files and updates it to match them.
+	 * Deleted files are removed right away, and so are modified files, whose old
+	 * postings are removed before they are indexed again. Added and modified
+	 * files are only recorded once they are committed after being indexed.
+	 *
+	 * @param files every file that should be indexed
+	 * @return the added, modified and deleted files
+	 * @throws IOException if a file cannot be read
+	 */
+	public synchronized Changes update(Collection<Path> files) throws IOException {
+		Changes changes = new Changes();
+		Set<String> seen = new HashSet<>();
+		for (Path file : files) {
+			String location = file.toString();
+			seen.add(location);
+			Entry old = entries.get(location);
+			long size = Files.size(file);
+			long modified = Files.getLastModifiedTime(file).toMillis();
+			if (old != null && old.size == size && old.modified == modified) {
+				continue;
+			}
+			Entry current = new Entry(size, modified, hash(file));
+			if (old == null) {
+				changes.added.add(file);
+				changes.pending.put(file, current);
+			} else if (!old.hash.equals(current.hash)) {
+				changes.modified.add(file);
+				changes.pending.put(file, current);
+				entries.remove(location);
+			} else {
+				entries.put(location, current);
+			}
+		}
+		Iterator<String> locations = entries.keySet().iterator();
+		while (locations.hasNext()) {
+			String location = locations.next();
+			if (!seen.contains(location)) {
+				changes.deleted.add(location);
+				locations.remove();
+			}
+		}
+		return changes;
+	}
+
+	/**
+	 * records an added or modified file once it was indexed
+	 *
+	 * @param changes the changes returned by {@link #update(Collection)}
+	 * @param file    file that was indexed
+	 */
+	public synchronized void commit(Changes changes, Path file) {
+		Entry entry = changes.pending.get(file);
+		if (entry != null) {
+			entries.put(file.toString(), entry);
+		}
+	}
+
+	/**
+	 * computes the SHA-256 hash of a file
+	 *
+	 * @param file file to hash
+	 * @return the hash as hexadecimal digits
+	 * @throws IOException exception thrown
+	 */
+	public static String hash(Path file) throws IOException {
+		MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+		try (InputStream in = Files.newInputStream(file)) {
+			byte[] buffer = new byte[8192];
+			int read;
+			while ((read = in.read(buffer)) != -1) {
+				digest.update(buffer, 0, read);
+			}
+		}
+		StringBuilder hex = new StringBuilder();
+		for (byte b : digest.digest()) {
+			hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+		}
+		return hex.toString();
+	}
+
+	/**
+	 * returns the number of files in the manifest
+	 *
+	 * @return number of files
+	 */
+	public synchronized int size() {
+		return entries.size();
+	}
+
+	/**
+	 * to string method
+	 */
+	@Override
+	public synchronized String toString() {
+		return entries.toString();
+	}
+
+	/**
+	 * Size, modified time and hash of a single file
+	 */
+	private static class Entry {
+		/**
+		 * size in bytes
+		 */
+		private final long size;
+		/**
+		 * last modified time in milliseconds
+		 */
+		private final long modified;
+		/**
+		 * SHA-256 hash of the content
+		 */
+		private final String hash;
+
+		/**
+		 * initialize new instance
+		 *
+		 * @param size     size in bytes
+		 * @param modified last modified time in milliseconds
+		 * @param hash     hash of the content
+		 */
+		public Entry(long size, long modified, String hash) {
+			this.size = size;
+			this.modified = modified;
+			this.hash = hash;
+		}
+
+		/**
+		 * to string method
+		 */
+		@Override
+		public String toString() {
+			return size + "/" + modified + "/" + hash;
+		}
+	}
+
+	/**
+	 * Files that changed since the manifest was last updated
+	 */
+	public static class Changes {
+		/**
+		 * files that are new
+		 */
+		private final List<Path> added;
+		/**
+		 * files whose content changed
+		 */
+		private final List<Path> modified;
+		/**
+		 * locations of files that no longer exist
+		 */
+		private final List<String> deleted;
+		/**
+		 * entries of the added and modified files, recorded once they are indexed
+		 */
+		private final Map<Path, Entry> pending;
+
+		/**
+		 * initialize new empty instance
+		 */
+		public Changes() {
+			this.added = new ArrayList<>();
+			this.modified = new ArrayList<>();
+			this.deleted = new ArrayList<>();
+			this.pending = new HashMap<>();
+		}
+
+		/**
+		 * returns the added and modified files, which need to be indexed
+		 *
+		 * @return files to index
+		 */
+		public List<Path> getChanged() {
+			List<Path> changed = new ArrayList<>(added);
+			changed.addAll(modified);
+			return changed;
+		}
+
+		/**
+		 * Returns the locations whose old postings have to be removed. Added files
+		 * are included as well, in case they were indexed without being recorded in
+		 * the manifest.
+		 *
+		 * @return locations to remove
+		 */
+		public List<String> getRemoved() {
+			List<String> removed = new ArrayList<>(deleted);
+			for (Path file : getChanged()) {
+				removed.add(file.toString());
+			}
+			return removed;
+		}
+
+		/**
+		 * checks if nothing changed
+		 *
+		 * @return true if no file was added, modified or deleted
+		 */
+		public boolean isEmpty() {
+			return added.isEmpty() && modified.isEmpty() && deleted.isEmpty();
+		}
+
+		/**
+		 * to string method
+		 */
+		@Override
+		public String toString() {
+			return "added=" + added.size() + ", modified=" + modified.size() + ", deleted=" + deleted.size();
+		}
+	}
+}
@@ -0,0 +1,150 @@
+package GamGo;
+
+import java.util.List;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Postings of many cursors merged into a single list sorted by document ID,
+ * such as those of every term a prefix expands to. The frequencies of the
+ * postings of a document are added up, and with a scorer so are their scores,
+ * each weighted by the document frequency of its own cursor, so a document
+ * scores the same as when the cursors are read one by one. Deleted documents
+ * are left out. Document IDs are dense, so the postings are added up in the
+ * arrays of the {@link Accumulator} of the thread, and only the documents that
+ * were matched are sorted and copied out. Merged postings never change, so
+ * they can be cached and read by many searches at once, see
+ * {@link PrefixCache}.
+ */
+public class MergedPostings {
+	/**
+	 * sorted document IDs
+	 */
+	private final int[] documents;
+	/**
+	 * added up frequency of each document
+	 */
+	private final int[] frequencies;
+	/**
+	 * added up score of each document, or null for the default score
+	 */
+	private final double[] scores;
+	/**
+	 * highest score of any document
+	 */
+	private final double bound;
+
+	/**
+	 * initialize new instance
+	 *
+	 * @param documents   sorted document IDs
+	 * @param frequencies added up frequency of each document
+	 * @param scores      added up score of each document, or null for the default
+	 *                    score
+	 * @param bound       highest score of any document
+	 */
+	private MergedPostings(int[] documents, int[] frequencies, double[] scores, double bound) {
+		this.documents = documents;
+		this.frequencies = frequencies;
+		this.scores = scores;
+		this.bound = bound;
+	}
+
+	/**
+	 * Merges the remaining postings of the cursors, which are read to the end
+	 *
+	 * @param cursors cursors to merge
+	 * @param table   table used to resolve documents
+	 * @param totals  word count of each document ID
+	 * @param scoring statistics of the scorer, or null for the default score
+	 * @return the merged postings
+	 */
+	public static MergedPostings merge(List<PostingCursor> cursors, DocumentTable table, IntUnaryOperator totals,
+			ScoreContext scoring) {
+		Accumulator accumulator = Accumulator.get(table.size(), scoring != null);
+		try {
+			for (PostingCursor cursor : cursors) {
+				double weight = scoring != null ? scoring.weight(cursor.documentFrequency()) : 0;
+				for (int document = cursor.document(); document != PostingCursor.END; document = cursor.next()) {
+					if (table.isDeleted(document)) {
+						continue;
+					}
+					if (scoring != null) {
+						accumulator.add(document, cursor.frequency(), cursor.score(scoring, weight));
+					} else {
+						accumulator.add(document, cursor.frequency());
+					}
+				}
+			}
+			int[] ids = accumulator.documents();
+			int[] frequencies = new int[ids.length];
+			double[] scores = scoring != null ? new double[ids.length] : null;
+			double bound = 0;
+			for (int i = 0; i < ids.length; i++) {
+				frequencies[i] = accumulator.count(ids[i]);
+				if (scores != null) {
+					scores[i] = accumulator.score(ids[i]);
+					bound = Math.max(bound, scores[i]);
+				} else {
+					bound = Math.max(bound, (double) frequencies[i] / totals.applyAsInt(ids[i]));
+				}
+			}
+			return new MergedPostings(ids, frequencies, scores, bound);
+		} finally {
+			accumulator.clear();
+		}
+	}
+
+	/**
+	 * returns the number of merged postings
+	 *
+	 * @return number of documents
+	 */
+	public int size() {
+		return documents.length;
+	}
+
+	/**
+	 * Returns a new cursor over the merged postings. Its bound is the highest
+	 * score of any document, and with a scorer its postings keep the scores they
+	 * were merged with, whatever the weight asked for. Merged postings have no
+	 * positions.
+	 *
+	 * @return the cursor
+	 */
+	public PostingCursor cursor() {
+		return new PostingCursor(0, documents.length) {
+			@Override
+			protected int documentAt(int index) {
+				return documents[index];
+			}
+
+			@Override
+			protected int frequencyAt(int index) {
+				return frequencies[index];
+			}
+
+			@Override
+			protected PositionCursor positionsAt(int index) {
+				throw new UnsupportedOperationException("Merged postings have no positions.");
+			}
+
+			@Override
+			protected double scoreAt(int index, ScoreContext scoring, double weight) {
+				return scores != null ? scores[index] : super.scoreAt(index, scoring, weight);
+			}
+
+			@Override
+			public double bound(ScoreContext scoring, double weight) {
+				return bound;
+			}
+		};
+	}
+
+	/**
+	 * to string method
+	 */
+	@Override
+	public String toString() {
+		return "MergedPostings[size=" + documents.length + ", scored=" + (scores != null) + ", bound=" + bound + "]";
+	}
+}
@@ -0,0 +1,89 @@
+package GamGo;
+
+import java.util.Collections;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+/**
+ * Canonical form of a query line: its sorted stems and phrases, and the text
+ * they join into. Lines that differ only in word order, case or inflection
+ * have the same canonical form, and the same search results.
+ */
+public class ParsedQuery {
+	/**
+	 * sorted stems and phrases of the query
+	 */
+	private final SortedSet<String> words;
+	/**
+	 * stems and quoted phrases joined by spaces
+	 */
+	private final String text;
+
+	/**
+	 * initialize new instance
+	 *
+	 * @param words stems and phrases of the query
+	 */
+	public ParsedQuery(SortedSet<String> words) {
+		this.words = Collections.unmodifiableSortedSet(new TreeSet<>(words));
+		this.text = QueryProcessorInterface.joinQuery(words);
+	}
+
+	/**
+	 * returns the sorted stems and phrases of the query
+	 *
+	 * @return unmodifiable sorted set of words
+	 */
+	public SortedSet<String> getWords() {
+		return words;
+	}
+
+	/**
+	 * returns the stems and quoted phrases joined by spaces
+	 *
+	 * @return the canonical text
+	 */
+	public String getText() {
+		return text;
+	}
+
+	/**
+	 * checks if the query has no words
+	 *
+	 * @return true if empty
+	 */
+	public boolean isEmpty() {
+		return words.isEmpty();
+	}
+
+	/**
+	 * Returns the key of the query searched in a mode, so the results of an exact
+	 * and a partial search, or of matching any and every word, are never mixed up
+	 *
+	 * @param partial whether words are prefixes
+	 * @param and     whether results must match every word
+	 * @return the key
+	 */
+	public String key(boolean partial, boolean and) {
+		return (partial ? "partial" : "exact") + (and ? " all: " : " any: ") + text;
+	}
+
+	/**
+	 * returns the key of the query searched for the words within an edit distance
+	 *
+	 * @param distance largest number of single character edits
+	 * @param and      whether results must match every word
+	 * @return the key
+	 */
+	public String fuzzyKey(int distance, boolean and) {
+		return "fuzzy " + distance + (and ? " all: " : " any: ") + text;
+	}
+
+	/**
+	 * to string method
+	 */
+	@Override
+	public String toString() {
+		return text;
+	}
+}
@@ -0,0 +1,91 @@
+package GamGo;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Cursor over positions encoded as by {@link PositionList}, decoding one
+ * position at a time without copying them into an array. The cursor only moves
+ * forward, so checking a phrase stops decoding the positions of a document as
+ * soon as any of its words runs out of positions.
+ */
+public class PositionCursor {
+	/**
+	 * position returned once the cursor is exhausted
+	 */
+	public static final int END = Integer.MAX_VALUE;
+	/**
+	 * encoded positions
+	 */
+	private final ByteBuffer bytes;
+	/**
+	 * byte offset of the next value
+	 */
+	private int offset;
+	/**
+	 * offset after the last encoded byte
+	 */
+	private final int end;
+	/**
+	 * current position
+	 */
+	private int current;
+
+	/**
+	 * initialize cursor at the first position
+	 *
+	 * @param bytes buffer holding encoded positions
+	 * @param from  index of the first encoded byte
+	 * @param to    index after the last encoded byte
+	 */
+	public PositionCursor(ByteBuffer bytes, int from, int to) {
+		this.bytes = bytes;
+		this.offset = from;
+		this.end = to;
+		this.current = 0;
+		next();
+	}
+
+	/**
+	 * returns the current position
+	 *
+	 * @return the position, or {@link #END} if the cursor is exhausted
+	 */
+	public int position() {
+		return current;
+	}
+
+	/**
+	 * moves to the next position
+	 *
+	 * @return the new position, or {@link #END} if there is none
+	 */
+	public int next() {
+		if (offset >= end) {
+			current = END;
+			return current;
+		}
+		int value = 0;
+		int shift = 0;
+		byte b;
+		do {
+			b = bytes.get(offset++);
+			value |= (b & 0x7F) << shift;
+			shift += 7;
+		} while ((b & 0x80) != 0);
+		current += value;
+		return current;
+	}
+
+	/**
+	 * moves to the first position that is at least the target
+	 *
+	 * @param target position to move to
+	 * @return the new position, or {@link #END} if there is none
+	 */
+	public int advance(int target) {
+		while (current < target) {
+			next();
+		}
+		return current;
+	}
+}
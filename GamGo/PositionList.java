@@ -0,0 +1,380 @@
+package GamGo;
+
+import java.nio.ByteBuffer;
+import java.util.AbstractCollection;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Sorted set of word positions for a single word and document, stored as
+ * delta-encoded variable-byte integers instead of boxed {@link Integer} objects.
+ * Each position is stored as the difference from the previous position using 7
+ * bits per byte, with the high bit marking that more bytes follow. Positions
+ * are almost always added in increasing order, which only appends to the
+ * encoded bytes; out of order positions fall back to decoding and re-encoding.
+ *
+ * Positions must not be negative. This class is not thread-safe.
+ */
+public class PositionList extends AbstractCollection<Integer> {
+	/**
+	 * encoded deltas
+	 */
+	private byte[] bytes;
+	/**
+	 * number of bytes in use
+	 */
+	private int length;
+	/**
+	 * number of positions
+	 */
+	private int size;
+	/**
+	 * largest position in the list
+	 */
+	private int last;
+
+	/**
+	 * initialize new empty instance
+	 */
+	public PositionList() {
+		this.bytes = new byte[4];
+		this.length = 0;
+		this.size = 0;
+		this.last = 0;
+	}
+
+	/**
+	 * initialize new instance with the same positions as another list
+	 *
+	 * @param other list to copy
+	 */
+	public PositionList(PositionList other) {
+		this.bytes = Arrays.copyOf(other.bytes, Math.max(other.length, 1));
+		this.length = other.length;
+		this.size = other.size;
+		this.last = other.last;
+	}
+
+	/**
+	 * adds a position to the list
+	 *
+	 * @param position position to add
+	 * @return true if the position was not already present
+	 */
+	public boolean add(int position) {
+		if (position < 0) {
+			throw new IllegalArgumentException("Positions must not be negative: " + position);
+		}
+		if (size == 0 || position > last) {
+			append(position - last);
+			last = position;
+			size++;
+			return true;
+		}
+		if (position == last) {
+			return false;
+		}
+		int[] positions = toIntArray();
+		int index = Arrays.binarySearch(positions, position);
+		if (index >= 0) {
+			return false;
+		}
+		index = -index - 1;
+		int[] merged = new int[positions.length + 1];
+		System.arraycopy(positions, 0, merged, 0, index);
+		merged[index] = position;
+		System.arraycopy(positions, index, merged, index + 1, positions.length - index);
+		encode(merged, merged.length);
+		return true;
+	}
+
+	@Override
+	public boolean add(Integer position) {
+		return add(position.intValue());
+	}
+
+	/**
+	 * adds every position from another list to this list
+	 *
+	 * @param other list to add
+	 */
+	public void addAll(PositionList other) {
+		if (other.size == 0) {
+			return;
+		}
+		if (size == 0 || other.first() > last) {
+			Cursor cursor = other.new Cursor();
+			append(cursor.next() - last);
+			int firstLength = cursor.offset;
+			ensureCapacity(length + other.length - firstLength);
+			System.arraycopy(other.bytes, firstLength, bytes, length, other.length - firstLength);
+			length += other.length - firstLength;
+			size += other.size;
+			last = other.last;
+			return;
+		}
+		int[] mine = toIntArray();
+		int[] theirs = other.toIntArray();
+		int[] merged = new int[mine.length + theirs.length];
+		int i = 0;
+		int j = 0;
+		int count = 0;
+		while (i < mine.length || j < theirs.length) {
+			int next;
+			if (j == theirs.length || (i < mine.length && mine[i] <= theirs[j])) {
+				next = mine[i++];
+			} else {
+				next = theirs[j++];
+			}
+			if (count == 0 || merged[count - 1] != next) {
+				merged[count++] = next;
+			}
+		}
+		encode(merged, count);
+	}
+
+	/**
+	 * checks if the list contains a position, stopping as soon as a larger position
+	 * is decoded
+	 *
+	 * @param position position to check
+	 * @return true if present
+	 */
+	public boolean contains(int position) {
+		if (size == 0 || position > last || position < 0) {
+			return false;
+		}
+		Cursor cursor = new Cursor();
+		while (cursor.hasNext()) {
+			int next = cursor.next();
+			if (next >= position) {
+				return next == position;
+			}
+		}
+		return false;
+	}
+
+	@Override
+	public boolean contains(Object o) {
+		return o instanceof Integer && contains(((Integer) o).intValue());
+	}
+
+	/**
+	 * returns the smallest position
+	 *
+	 * @return the first position
+	 * @throws NoSuchElementException if the list is empty
+	 */
+	public int first() {
+		if (size == 0) {
+			throw new NoSuchElementException();
+		}
+		return new Cursor().next();
+	}
+
+	/**
+	 * returns the largest position
+	 *
+	 * @return the last position
+	 * @throws NoSuchElementException if the list is empty
+	 */
+	public int last() {
+		if (size == 0) {
+			throw new NoSuchElementException();
+		}
+		return last;
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * returns the number of bytes used to encode the positions
+	 *
+	 * @return encoded length in bytes
+	 */
+	public int encodedLength() {
+		return length;
+	}
+
+	/**
+	 * decodes the positions into a sorted array
+	 *
+	 * @return sorted array of positions
+	 */
+	public int[] toIntArray() {
+		int[] positions = new int[size];
+		Cursor cursor = new Cursor();
+		for (int i = 0; i < size; i++) {
+			positions[i] = cursor.next();
+		}
+		return positions;
+	}
+
+	/**
+	 * copies the encoded positions into another array
+	 *
+	 * @param dest   array to copy into
+	 * @param offset index in the array to start copying at
+	 * @return the index after the last copied byte
+	 */
+	public int writeTo(byte[] dest, int offset) {
+		System.arraycopy(bytes, 0, dest, offset, length);
+		return offset + length;
+	}
+
+	/**
+	 * creates a list from positions encoded the same way as by
+	 * {@link #writeTo(byte[], int)}
+	 *
+	 * @param source buffer holding encoded positions
+	 * @param from   index of the first encoded byte
+	 * @param to     index after the last encoded byte
+	 * @return the decoded list
+	 */
+	public static PositionList copyOf(ByteBuffer source, int from, int to) {
+		PositionList list = new PositionList();
+		list.bytes = new byte[Math.max(to - from, 1)];
+		source.get(from, list.bytes, 0, to - from);
+		list.length = to - from;
+		Cursor cursor = list.new Cursor();
+		while (cursor.hasNext()) {
+			list.last = cursor.next();
+			list.size++;
+		}
+		return list;
+	}
+
+	/**
+	 * returns a cursor over the positions, which must not be used after the list
+	 * changes
+	 *
+	 * @return the cursor
+	 */
+	public PositionCursor positions() {
+		return new PositionCursor(ByteBuffer.wrap(bytes), 0, length);
+	}
+
+	/**
+	 * shrinks the backing array to the encoded length
+	 */
+	public void trimToSize() {
+		if (bytes.length > length) {
+			bytes = Arrays.copyOf(bytes, Math.max(length, 1));
+		}
+	}
+
+	@Override
+	public Iterator<Integer> iterator() {
+		return new Iterator<>() {
+			private final Cursor cursor = new Cursor();
+
+			@Override
+			public boolean hasNext() {
+				return cursor.hasNext();
+			}
+
+			@Override
+			public Integer next() {
+				if (!cursor.hasNext()) {
+					throw new NoSuchElementException();
+				}
+				return cursor.next();
+			}
+		};
+	}
+
+	/**
+	 * appends a single variable-byte encoded value
+	 *
+	 * @param value value to append
+	 */
+	private void append(int value) {
+		ensureCapacity(length + 5);
+		while ((value & ~0x7F) != 0) {
+			bytes[length++] = (byte) ((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		bytes[length++] = (byte) value;
+	}
+
+	/**
+	 * grows the backing array to hold at least the given number of bytes
+	 *
+	 * @param capacity minimum capacity
+	 */
+	private void ensureCapacity(int capacity) {
+		if (capacity > bytes.length) {
+			bytes = Arrays.copyOf(bytes, Math.max(capacity, bytes.length * 2));
+		}
+	}
+
+	/**
+	 * replaces the contents of this list with the sorted distinct positions
+	 *
+	 * @param positions sorted distinct positions
+	 * @param count     number of positions to use
+	 */
+	private void encode(int[] positions, int count) {
+		length = 0;
+		size = 0;
+		last = 0;
+		for (int i = 0; i < count; i++) {
+			append(positions[i] - last);
+			last = positions[i];
+			size++;
+		}
+	}
+
+	/**
+	 * Decodes positions in increasing order without boxing
+	 */
+	public class Cursor {
+		/**
+		 * byte offset of the next value
+		 */
+		private int offset;
+		/**
+		 * last decoded position
+		 */
+		private int current;
+
+		/**
+		 * initialize cursor at the start of the list
+		 */
+		public Cursor() {
+			this.offset = 0;
+			this.current = 0;
+		}
+
+		/**
+		 * checks if there are more positions
+		 *
+		 * @return true if there are more positions
+		 */
+		public boolean hasNext() {
+			return offset < length;
+		}
+
+		/**
+		 * decodes the next position
+		 *
+		 * @return the next position
+		 */
+		public int next() {
+			int value = 0;
+			int shift = 0;
+			byte b;
+			do {
+				b = bytes[offset++];
+				value |= (b & 0x7F) << shift;
+				shift += 7;
+			} while ((b & 0x80) != 0);
+			current += value;
+			return current;
+		}
+	}
+}
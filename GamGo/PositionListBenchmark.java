@@ -0,0 +1,82 @@
+package GamGo;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * Measures the live heap taken by the positions of an index, stored once as
+ * {@link PositionList} and once as {@link TreeSet} of {@link Integer}, which is
+ * how positions were stored before. Both copies hold the positions of every
+ * word and document of the same index, so only the storage differs. Not used
+ * by {@link Driver}, run it with the directory of text files to index:
+ *
+ * <pre>
+ * java GamGo.PositionListBenchmark input/text
+ * </pre>
+ */
+public class PositionListBenchmark {
+	/**
+	 * builds an index of the given directory and prints the heap taken by its
+	 * positions in either storage
+	 *
+	 * @param args directory or file to index
+	 * @throws IOException          if the input cannot be read
+	 * @throws InterruptedException if interrupted while waiting for the garbage
+	 *                              collector
+	 */
+	public static void main(String[] args) throws IOException, InterruptedException {
+		if (args.length < 1) {
+			System.out.println("Usage: java GamGo.PositionListBenchmark <path>");
+			return;
+		}
+		InvertedIndex index = new InvertedIndex();
+		TextProcessor.process(index, Path.of(args[0]));
+		System.out.println("words=" + index.numWords() + " documents=" + index.numCounts() + " positions="
+				+ index.size());
+
+		long before = usedMemory();
+		List<PositionList> lists = new ArrayList<>();
+		for (String word : index.getWords()) {
+			for (String location : index.getLocation(word)) {
+				PositionList list = new PositionList();
+				for (int position : index.getPositions(word, location)) {
+					list.add(position);
+				}
+				list.trimToSize();
+				lists.add(list);
+			}
+		}
+		long encoded = usedMemory() - before;
+		lists = null;
+
+		before = usedMemory();
+		List<TreeSet<Integer>> sets = new ArrayList<>();
+		for (String word : index.getWords()) {
+			for (String location : index.getLocation(word)) {
+				sets.add(new TreeSet<>(index.getPositions(word, location)));
+			}
+		}
+		long boxed = usedMemory() - before;
+
+		System.out.printf("lists=%d PositionList=%.1f MB TreeSet<Integer>=%.1f MB%n", sets.size(),
+				encoded / 1048576.0, boxed / 1048576.0);
+	}
+
+	/**
+	 * returns the heap in use after asking the garbage collector to run
+	 *
+	 * @return bytes in use
+	 * @throws InterruptedException if interrupted while waiting
+	 */
+	private static long usedMemory() throws InterruptedException {
+		Runtime runtime = Runtime.getRuntime();
+		for (int i = 0; i < 3; i++) {
+			System.gc();
+			Thread.sleep(100);
+		}
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+}
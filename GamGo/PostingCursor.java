@@ -0,0 +1,643 @@
+package GamGo;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Cursor over the postings of one term, sorted by document ID. The cursor only
+ * moves forward, and skips ahead with a galloping search: it probes 1, 2, 4, 8
+ * ... postings ahead until it passes the target, then binary searches the last
+ * gap. Skipping over n postings takes about 2 log n probes, so intersecting a
+ * rare term with a common one only touches a small part of the common term's
+ * postings.
+ */
+public abstract class PostingCursor {
+	/**
+	 * document ID returned once the cursor is exhausted
+	 */
+	public static final int END = Integer.MAX_VALUE;
+	/**
+	 * largest number of cursors of a word that are advanced one by one, above
+	 * which they are merged into a single cursor first
+	 */
+	static final int MAX_CURSORS = 16;
+	/**
+	 * relative margin added to score bounds, so rounding never prunes a document
+	 * that could still tie with the worst kept result
+	 */
+	private static final double SLACK = 1e-9;
+	/**
+	 * index of the current posting
+	 */
+	private int index;
+	/**
+	 * index after the last posting
+	 */
+	private final int end;
+	/**
+	 * number of live documents containing the term in the whole index, or -1 if
+	 * not counted
+	 */
+	private int documentFrequency;
+
+	/**
+	 * initialize new instance
+	 *
+	 * @param start index of the first posting
+	 * @param end   index after the last posting
+	 */
+	protected PostingCursor(int start, int end) {
+		this.index = start;
+		this.end = end;
+		this.documentFrequency = -1;
+	}
+
+	/**
+	 * returns the document ID of a posting
+	 *
+	 * @param index posting index
+	 * @return document ID
+	 */
+	protected abstract int documentAt(int index);
+
+	/**
+	 * returns the number of positions of a posting
+	 *
+	 * @param index posting index
+	 * @return number of positions
+	 */
+	protected abstract int frequencyAt(int index);
+
+	/**
+	 * returns the positions of a posting
+	 *
+	 * @param index posting index
+	 * @return cursor over the positions
+	 */
+	protected abstract PositionCursor positionsAt(int index);
+
+	/**
+	 * returns the document ID of the current posting
+	 *
+	 * @return the document ID, or {@link #END} if the cursor is exhausted
+	 */
+	public int document() {
+		return index < end ? documentAt(index) : END;
+	}
+
+	/**
+	 * returns the number of positions of the current posting
+	 *
+	 * @return number of positions
+	 */
+	public int frequency() {
+		return frequencyAt(index);
+	}
+
+	/**
+	 * returns the positions of the current posting
+	 *
+	 * @return cursor over the positions
+	 */
+	public PositionCursor positions() {
+		return positionsAt(index);
+	}
+
+	/**
+	 * moves to the next posting
+	 *
+	 * @return the document ID of the new current posting, or {@link #END} if
+	 *         there is none
+	 */
+	public int next() {
+		if (index < end) {
+			index++;
+		}
+		return document();
+	}
+
+	/**
+	 * returns the number of postings left
+	 *
+	 * @return number of postings
+	 */
+	public int remaining() {
+		return end - index;
+	}
+
+	/**
+	 * Returns the term the postings belong to, so the cursors of the same term in
+	 * different segments can be counted together. Cursors that are not over a
+	 * single term have none.
+	 *
+	 * @return the term, or null if there is none
+	 */
+	protected String term() {
+		return null;
+	}
+
+	/**
+	 * returns the number of remaining postings whose document was not deleted
+	 *
+	 * @param table table used to resolve documents
+	 * @return number of postings
+	 */
+	protected int live(DocumentTable table) {
+		if (!table.hasDeleted()) {
+			return remaining();
+		}
+		int live = 0;
+		for (int i = index; i < end; i++) {
+			if (!table.isDeleted(documentAt(i))) {
+				live++;
+			}
+		}
+		return live;
+	}
+
+	/**
+	 * Returns the number of documents containing the term, which weighs the term
+	 * when scoring. Unless it was counted across the index, it is the number of
+	 * remaining postings.
+	 *
+	 * @return the document frequency
+	 */
+	public int documentFrequency() {
+		return documentFrequency >= 0 ? documentFrequency : remaining();
+	}
+
+	/**
+	 * Counts the document frequency of every term across the whole index before a
+	 * scored search of segments. A term found in several segments has one cursor
+	 * per segment, and each of them gets the live postings of all of them, so a
+	 * term weighs the same however its documents are spread across segments and
+	 * after they are merged. Cursors without a term only count their own live
+	 * postings.
+	 *
+	 * @param words cursors of each word
+	 * @param table table used to resolve documents
+	 */
+	public static void countDocuments(List<List<PostingCursor>> words, DocumentTable table) {
+		for (List<PostingCursor> cursors : words) {
+			int[] live = new int[cursors.size()];
+			HashMap<String, Integer> terms = new HashMap<>();
+			for (int i = 0; i < live.length; i++) {
+				PostingCursor cursor = cursors.get(i);
+				live[i] = cursor.live(table);
+				if (cursor.term() != null) {
+					terms.merge(cursor.term(), live[i], Integer::sum);
+				}
+			}
+			for (int i = 0; i < live.length; i++) {
+				PostingCursor cursor = cursors.get(i);
+				cursor.documentFrequency = cursor.term() != null ? terms.get(cursor.term()) : live[i];
+			}
+		}
+	}
+
+	/**
+	 * returns the score of the current posting
+	 *
+	 * @param scoring statistics of the scorer
+	 * @param weight  weight of the word
+	 * @return the score
+	 */
+	public double score(ScoreContext scoring, double weight) {
+		return scoreAt(index, scoring, weight);
+	}
+
+	/**
+	 * returns the score of a posting
+	 *
+	 * @param index   posting index
+	 * @param scoring statistics of the scorer
+	 * @param weight  weight of the word
+	 * @return the score
+	 */
+	protected double scoreAt(int index, ScoreContext scoring, double weight) {
+		return scoring.score(frequencyAt(index), weight, documentAt(index));
+	}
+
+	/**
+	 * Returns an upper bound on the score of any posting of the cursor, used to
+	 * skip documents that cannot make it into the best results. Cursors that keep
+	 * no statistics about their postings have no bound.
+	 *
+	 * @param scoring statistics of the scorer, or null for the default score
+	 * @param weight  weight of the word
+	 * @return the bound, or positive infinity if there is none
+	 */
+	public double bound(ScoreContext scoring, double weight) {
+		return Double.POSITIVE_INFINITY;
+	}
+
+	/**
+	 * Moves to the first posting whose document ID is at least the target
+	 *
+	 * @param target document ID to move to
+	 * @return the document ID of the new current posting, or {@link #END} if
+	 *         there is none
+	 */
+	public int advance(int target) {
+		if (index >= end || documentAt(index) >= target) {
+			return document();
+		}
+		int low = index;
+		int step = 1;
+		while (low + step < end && documentAt(low + step) < target) {
+			low += step;
+			step <<= 1;
+		}
+		int high = Math.min(low + step, end);
+		low++;
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (documentAt(middle) < target) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+		index = low;
+		return document();
+	}
+
+	/**
+	 * Finds the documents that match every word. Each word is matched by any of
+	 * its cursors, such as one per term a prefix expands to or one per segment.
+	 * The word with the fewest postings drives the search, and every other word
+	 * either confirms a candidate or skips the candidate ahead to its own next
+	 * document. The count of a result adds up every matching posting, so it is
+	 * the same as in a search for any of the words. Words with more than
+	 * {@value #MAX_CURSORS} cursors are merged into {@link MergedPostings} first,
+	 * which keep the score of every cursor weighted by its own document frequency.
+	 *
+	 * @param words   cursors of each word
+	 * @param table   table used to resolve documents
+	 * @param totals  word count of each document ID
+	 * @param scoring statistics of the scorer, or null for the default score
+	 * @param results collector to add every matching document to as soon as it
+	 *                is scored
+	 */
+	public static void intersect(List<List<PostingCursor>> words, DocumentTable table, IntUnaryOperator totals,
+			ScoreContext scoring, TopResults results) {
+		if (words.isEmpty()) {
+			return;
+		}
+		List<List<PostingCursor>> sorted = new ArrayList<>();
+		for (List<PostingCursor> cursors : words) {
+			sorted.add(cursors.size() > MAX_CURSORS
+					? List.of(MergedPostings.merge(cursors, table, totals, scoring).cursor())
+					: cursors);
+		}
+		sorted.sort(Comparator.comparingLong(cursors -> remaining(cursors)));
+		if (remaining(sorted.get(0)) == 0) {
+			return;
+		}
+		double[][] weights = new double[sorted.size()][];
+		for (int i = 0; i < weights.length; i++) {
+			weights[i] = new double[sorted.get(i).size()];
+			for (int j = 0; scoring != null && j < weights[i].length; j++) {
+				weights[i][j] = scoring.weight(sorted.get(i).get(j).documentFrequency());
+			}
+		}
+		int target = 0;
+		while (true) {
+			int candidate = advance(sorted.get(0), target);
+			if (candidate == END) {
+				return;
+			}
+			if (table.isDeleted(candidate)) {
+				target = candidate + 1;
+				continue;
+			}
+			target = candidate;
+			for (int i = 1; i < sorted.size() && target == candidate; i++) {
+				target = advance(sorted.get(i), candidate);
+			}
+			if (target != candidate) {
+				continue;
+			}
+			InvertedIndex.SearchResult result = new InvertedIndex.SearchResult(table, candidate,
+					totals.applyAsInt(candidate));
+			for (int i = 0; i < weights.length; i++) {
+				for (int j = 0; j < weights[i].length; j++) {
+					PostingCursor cursor = sorted.get(i).get(j);
+					if (cursor.document() == candidate) {
+						result.update(cursor, scoring, weights[i][j]);
+					}
+				}
+			}
+			results.add(result);
+			target = candidate + 1;
+		}
+	}
+
+	/**
+	 * Finds the best documents that match any word with MaxScore pruning. The
+	 * cursors are sorted by the upper bound of their scores, and once the results
+	 * are full, the cursors whose bounds add up to less than the worst kept score
+	 * become non-essential: a document they alone contain cannot be kept, so only
+	 * the documents of the other cursors are candidates. The non-essential cursors
+	 * are then checked from the highest bound down, and a candidate is dropped as
+	 * soon as its score so far plus the bounds left cannot reach the worst kept
+	 * score, without reading further postings. The postings of a kept document are
+	 * added up in the order of the words, so it is scored exactly like in a full
+	 * search. Searches for every result, and words with more than
+	 * {@value #MAX_CURSORS} cursors, are not pruned, see {@link #accumulate}.
+	 *
+	 * @param words   cursors of each word
+	 * @param table   table used to resolve documents
+	 * @param totals  word count of each document ID
+	 * @param scoring statistics of the scorer, or null for the default score
+	 * @param results collector of the best results
+	 */
+	public static void rank(List<List<PostingCursor>> words, DocumentTable table, IntUnaryOperator totals,
+			ScoreContext scoring, TopResults results) {
+		List<PostingCursor> cursors = new ArrayList<>();
+		boolean wide = false;
+		for (List<PostingCursor> wordCursors : words) {
+			wide |= wordCursors.size() > MAX_CURSORS;
+			for (PostingCursor cursor : wordCursors) {
+				if (cursor.remaining() > 0) {
+					cursors.add(cursor);
+				}
+			}
+		}
+		int size = cursors.size();
+		double[] weights = new double[size];
+		for (int i = 0; i < size; i++) {
+			weights[i] = scoring != null ? scoring.weight(cursors.get(i).documentFrequency()) : 0;
+		}
+		if (wide || results.getLimit() == TopResults.ALL) {
+			accumulate(cursors, weights, table, totals, scoring, results);
+			return;
+		}
+		double[] bounds = new double[size];
+		Integer[] order = new Integer[size];
+		for (int i = 0; i < size; i++) {
+			bounds[i] = cursors.get(i).bound(scoring, weights[i]);
+			order[i] = i;
+		}
+		Arrays.sort(order, Comparator.comparingDouble(i -> bounds[i]));
+		PostingCursor[] sorted = new PostingCursor[size];
+		double[] upper = new double[size];
+		double sum = 0;
+		for (int j = 0; j < size; j++) {
+			sorted[j] = cursors.get(order[j]);
+			sum += bounds[order[j]];
+			upper[j] = sum;
+		}
+		double threshold = results.threshold();
+		int essential = 0;
+		while (essential < size && upper[essential] * (1 + SLACK) < threshold) {
+			essential++;
+		}
+		PriorityQueue<Integer> queue = new PriorityQueue<>(Math.max(1, size - essential),
+				Comparator.comparingInt(j -> sorted[j].document()));
+		for (int j = essential; j < size; j++) {
+			queue.add(j);
+		}
+		int[] matched = new int[size];
+		while (!queue.isEmpty()) {
+			int candidate = sorted[queue.peek()].document();
+			if (candidate == END) {
+				return;
+			}
+			int popped = 0;
+			while (!queue.isEmpty() && sorted[queue.peek()].document() == candidate) {
+				int j = queue.poll();
+				if (j >= essential) {
+					matched[popped++] = j;
+				}
+			}
+			if (popped > 0 && !table.isDeleted(candidate)) {
+				int total = totals.applyAsInt(candidate);
+				double score = 0;
+				for (int k = 0; k < popped; k++) {
+					score += score(sorted[matched[k]], scoring, weights[order[matched[k]]], total);
+				}
+				int found = popped;
+				int j = essential - 1;
+				while (j >= 0 && (score + upper[j]) * (1 + SLACK) >= threshold) {
+					if (sorted[j].advance(candidate) == candidate) {
+						matched[found++] = j;
+						score += score(sorted[j], scoring, weights[order[j]], total);
+					}
+					j--;
+				}
+				if (j < 0) {
+					int[] byWord = new int[found];
+					for (int k = 0; k < found; k++) {
+						byWord[k] = order[matched[k]];
+					}
+					Arrays.sort(byWord);
+					InvertedIndex.SearchResult result = new InvertedIndex.SearchResult(table, candidate, total);
+					for (int i : byWord) {
+						result.update(cursors.get(i), scoring, weights[i]);
+					}
+					results.add(result);
+					threshold = results.threshold();
+				}
+			}
+			while (essential < size && upper[essential] * (1 + SLACK) < threshold) {
+				essential++;
+			}
+			for (int k = 0; k < popped; k++) {
+				if (matched[k] >= essential) {
+					sorted[matched[k]].next();
+					queue.add(matched[k]);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Adds up every posting of the cursors in an {@link Accumulator}, then adds
+	 * the documents that can be kept to the collector. This is used when every
+	 * result is wanted, and for prefixes that match thousands of terms, where
+	 * checking the bounds of every cursor for each candidate would cost more than
+	 * reading their postings once.
+	 *
+	 * @param cursors cursors of every word, in word order
+	 * @param weights weight of each cursor
+	 * @param table   table used to resolve documents
+	 * @param totals  word count of each document ID
+	 * @param scoring statistics of the scorer, or null for the default score
+	 * @param results collector of the best results
+	 */
+	private static void accumulate(List<PostingCursor> cursors, double[] weights, DocumentTable table,
+			IntUnaryOperator totals, ScoreContext scoring, TopResults results) {
+		Accumulator accumulator = Accumulator.get(table.size(), scoring != null);
+		for (int i = 0; i < cursors.size(); i++) {
+			PostingCursor cursor = cursors.get(i);
+			for (int document = cursor.document(); document != END; document = cursor.next()) {
+				if (table.isDeleted(document)) {
+					continue;
+				}
+				if (scoring == null) {
+					accumulator.add(document, cursor.frequency());
+				} else {
+					accumulator.add(document, cursor.frequency(), cursor.score(scoring, weights[i]));
+				}
+			}
+		}
+		accumulator.select(results, table, totals);
+	}
+
+	/**
+	 * returns the score of the current posting of a cursor
+	 *
+	 * @param cursor  cursor on the posting
+	 * @param scoring statistics of the scorer, or null for the default score
+	 * @param weight  weight of the word
+	 * @param total   word count of the document
+	 * @return the score
+	 */
+	private static double score(PostingCursor cursor, ScoreContext scoring, double weight, int total) {
+		return scoring != null ? cursor.score(scoring, weight) : (double) cursor.frequency() / total;
+	}
+
+	/**
+	 * Finds the documents that contain the words of a phrase at consecutive
+	 * positions. The documents that contain every word are found like in
+	 * {@link #intersect}, then the positions of each candidate are checked in one
+	 * pass: the word with the fewest positions in the document proposes where the
+	 * phrase starts, and every other word either confirms the start or moves it
+	 * ahead to its own next position. A document is given up as soon as any word runs out of
+	 * positions.
+	 *
+	 * @param phrase the phrase, which the cursor counts as its term
+	 * @param words  cursor of each word of the phrase, in phrase order
+	 * @return cursor over the documents containing the phrase, with the number of
+	 *         times the phrase occurs as frequency
+	 */
+	public static PostingCursor phrase(String phrase, List<PostingCursor> words) {
+		int[] documents = new int[0];
+		int[] frequencies = new int[0];
+		int size = 0;
+		List<PostingCursor> sorted = new ArrayList<>(words);
+		sorted.sort(Comparator.comparingInt(PostingCursor::remaining));
+		int target = 0;
+		while (!sorted.isEmpty()) {
+			int candidate = sorted.get(0).advance(target);
+			if (candidate == END) {
+				break;
+			}
+			target = candidate;
+			for (int i = 1; i < sorted.size() && target == candidate; i++) {
+				target = sorted.get(i).advance(candidate);
+			}
+			if (target != candidate) {
+				continue;
+			}
+			int count = occurrences(words);
+			if (count > 0) {
+				if (size == documents.length) {
+					documents = Arrays.copyOf(documents, Math.max(4, size * 2));
+					frequencies = Arrays.copyOf(frequencies, documents.length);
+				}
+				documents[size] = candidate;
+				frequencies[size++] = count;
+			}
+			target = candidate + 1;
+		}
+		int[] phraseDocuments = documents;
+		int[] phraseFrequencies = frequencies;
+		return new PostingCursor(0, size) {
+			@Override
+			protected int documentAt(int index) {
+				return phraseDocuments[index];
+			}
+
+			@Override
+			protected int frequencyAt(int index) {
+				return phraseFrequencies[index];
+			}
+
+			@Override
+			protected PositionCursor positionsAt(int index) {
+				throw new UnsupportedOperationException("Phrase postings have no positions.");
+			}
+
+			@Override
+			protected String term() {
+				return phrase;
+			}
+		};
+	}
+
+	/**
+	 * counts how often the words occur at consecutive positions in the document
+	 * every cursor is on
+	 *
+	 * @param words cursor of each word of the phrase, in phrase order
+	 * @return number of occurrences of the phrase
+	 */
+	private static int occurrences(List<PostingCursor> words) {
+		PositionCursor[] positions = new PositionCursor[words.size()];
+		int driver = 0;
+		for (int i = 0; i < positions.length; i++) {
+			positions[i] = words.get(i).positions();
+			if (words.get(i).frequency() < words.get(driver).frequency()) {
+				driver = i;
+			}
+		}
+		int count = 0;
+		int position = positions[driver].position();
+		while (position != PositionCursor.END) {
+			int start = position - driver;
+			int next = start;
+			for (int i = 0; i < positions.length && next == start; i++) {
+				int found = positions[i].advance(start + i);
+				if (found == PositionCursor.END) {
+					return count;
+				}
+				next = found - i;
+			}
+			if (next == start) {
+				count++;
+				position = positions[driver].next();
+			} else {
+				position = positions[driver].advance(next + driver);
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * returns the number of postings left in a group of cursors
+	 *
+	 * @param cursors cursors of one word
+	 * @return number of postings
+	 */
+	private static long remaining(List<PostingCursor> cursors) {
+		long remaining = 0;
+		for (PostingCursor cursor : cursors) {
+			remaining += cursor.remaining();
+		}
+		return remaining;
+	}
+
+	/**
+	 * moves every cursor of a word to the target and returns the lowest document
+	 * ID they are on
+	 *
+	 * @param cursors cursors of one word
+	 * @param target  document ID to move to
+	 * @return the lowest document ID, or {@link #END} if every cursor is
+	 *         exhausted
+	 */
+	private static int advance(List<PostingCursor> cursors, int target) {
+		int lowest = END;
+		for (PostingCursor cursor : cursors) {
+			lowest = Math.min(lowest, cursor.advance(target));
+		}
+		return lowest;
+	}
+}
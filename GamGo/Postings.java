@@ -0,0 +1,290 @@
+package GamGo;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Postings of a single word, mapping document IDs to their positions. The IDs
+ * are kept sorted in a plain array next to an array of position lists, so the
+ * map is always iterated in ID order. A new document always gets a higher ID
+ * than the documents already in the table, so its postings are appended at the
+ * end instead of being inserted into a tree, and merging the postings of
+ * another index appends whole runs in a single pass.
+ */
+public class Postings extends AbstractMap<Integer, PositionList> {
+	/**
+	 * sorted document IDs
+	 */
+	private int[] ids;
+	/**
+	 * positions of each document, in the same order as the IDs
+	 */
+	private PositionList[] lists;
+	/**
+	 * number of documents
+	 */
+	private int size;
+	/**
+	 * number of times the IDs were changed, to detect changes while iterating
+	 */
+	private int modifications;
+
+	/**
+	 * initialize new instance
+	 */
+	public Postings() {
+		this.ids = new int[2];
+		this.lists = new PositionList[2];
+		this.size = 0;
+		this.modifications = 0;
+	}
+
+	/**
+	 * finds the index of a document ID
+	 *
+	 * @param id document ID to find
+	 * @return the index, or (-(insertion point) - 1) if it is not present
+	 */
+	private int indexOf(int id) {
+		if (size > 0 && ids[size - 1] == id) {
+			return size - 1;
+		}
+		return Arrays.binarySearch(ids, 0, size, id);
+	}
+
+	/**
+	 * makes room for at least the given number of documents
+	 *
+	 * @param capacity number of documents
+	 */
+	private void ensureCapacity(int capacity) {
+		if (capacity > ids.length) {
+			int grown = Math.max(capacity, ids.length * 2);
+			ids = Arrays.copyOf(ids, grown);
+			lists = Arrays.copyOf(lists, grown);
+		}
+	}
+
+	/**
+	 * returns the positions of a document
+	 *
+	 * @param id document ID
+	 * @return the positions, or null if the document is not present
+	 */
+	public PositionList get(int id) {
+		int index = indexOf(id);
+		return index >= 0 ? lists[index] : null;
+	}
+
+	@Override
+	public PositionList get(Object key) {
+		return key instanceof Integer id ? get(id.intValue()) : null;
+	}
+
+	@Override
+	public boolean containsKey(Object key) {
+		return get(key) != null;
+	}
+
+	/**
+	 * Sets the positions of a document. A document with a higher ID than every
+	 * present document is appended without searching.
+	 *
+	 * @param id        document ID
+	 * @param positions positions of the document
+	 * @return the previous positions, or null if the document was not present
+	 */
+	public PositionList put(int id, PositionList positions) {
+		if (positions == null) {
+			throw new NullPointerException("Positions must not be null.");
+		}
+		if (size == 0 || ids[size - 1] < id) {
+			ensureCapacity(size + 1);
+			ids[size] = id;
+			lists[size++] = positions;
+			modifications++;
+			return null;
+		}
+		int index = indexOf(id);
+		if (index >= 0) {
+			PositionList previous = lists[index];
+			lists[index] = positions;
+			return previous;
+		}
+		index = -index - 1;
+		ensureCapacity(size + 1);
+		System.arraycopy(ids, index, ids, index + 1, size - index);
+		System.arraycopy(lists, index, lists, index + 1, size - index);
+		ids[index] = id;
+		lists[index] = positions;
+		size++;
+		modifications++;
+		return null;
+	}
+
+	@Override
+	public PositionList put(Integer id, PositionList positions) {
+		return put(id.intValue(), positions);
+	}
+
+	@Override
+	public PositionList remove(Object key) {
+		if (!(key instanceof Integer id)) {
+			return null;
+		}
+		int index = indexOf(id);
+		if (index < 0) {
+			return null;
+		}
+		PositionList previous = lists[index];
+		removeAt(index);
+		return previous;
+	}
+
+	/**
+	 * removes the document at an index
+	 *
+	 * @param index index to remove
+	 */
+	private void removeAt(int index) {
+		System.arraycopy(ids, index + 1, ids, index, size - index - 1);
+		System.arraycopy(lists, index + 1, lists, index, size - index - 1);
+		lists[--size] = null;
+		modifications++;
+	}
+
+	/**
+	 * Adds the postings of another index in a single pass. Every posting whose
+	 * mapped ID is higher than the last present ID is appended, which is the case
+	 * for every document that is new to this index, and the positions of
+	 * documents that are already present are merged.
+	 *
+	 * @param other   postings of the other index, iterated in ID order
+	 * @param mapping array mapping the other index's document IDs to IDs in this
+	 *                index, with -1 for documents to skip
+	 * @return the number of positions added, leaving out positions that were
+	 *         already present
+	 */
+	public int addAll(Map<Integer, PositionList> other, int[] mapping) {
+		ensureCapacity(size + other.size());
+		int added = 0;
+		for (var posting : other.entrySet()) {
+			int id = mapping[posting.getKey()];
+			if (id < 0) {
+				continue;
+			}
+			PositionList positions = posting.getValue();
+			PositionList existing = size == 0 || ids[size - 1] < id ? null : get(id);
+			if (existing == null) {
+				put(id, new PositionList(positions));
+				added += positions.size();
+			} else {
+				int before = existing.size();
+				existing.addAll(positions);
+				added += existing.size() - before;
+			}
+		}
+		return added;
+	}
+
+	/**
+	 * returns a cursor over the postings in ID order, which must not be used after
+	 * the postings change
+	 *
+	 * @return the cursor
+	 */
+	public PostingCursor cursor() {
+		int[] cursorIds = ids;
+		PositionList[] cursorLists = lists;
+		return new PostingCursor(0, size) {
+			@Override
+			protected int documentAt(int index) {
+				return cursorIds[index];
+			}
+
+			@Override
+			protected int frequencyAt(int index) {
+				return cursorLists[index].size();
+			}
+
+			@Override
+			protected PositionCursor positionsAt(int index) {
+				return cursorLists[index].positions();
+			}
+		};
+	}
+
+	/**
+	 * returns the highest document ID
+	 *
+	 * @return the last document ID
+	 * @throws NoSuchElementException if there are no postings
+	 */
+	public int lastKey() {
+		if (size == 0) {
+			throw new NoSuchElementException();
+		}
+		return ids[size - 1];
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public Set<Map.Entry<Integer, PositionList>> entrySet() {
+		return new AbstractSet<>() {
+			@Override
+			public Iterator<Map.Entry<Integer, PositionList>> iterator() {
+				return new Iterator<>() {
+					private int next = 0;
+					private int last = -1;
+					private int expected = modifications;
+
+					@Override
+					public boolean hasNext() {
+						return next < size;
+					}
+
+					@Override
+					public Map.Entry<Integer, PositionList> next() {
+						if (expected != modifications) {
+							throw new ConcurrentModificationException();
+						}
+						if (next >= size) {
+							throw new NoSuchElementException();
+						}
+						last = next++;
+						return new SimpleImmutableEntry<>(ids[last], lists[last]);
+					}
+
+					@Override
+					public void remove() {
+						if (last < 0) {
+							throw new IllegalStateException();
+						}
+						if (expected != modifications) {
+							throw new ConcurrentModificationException();
+						}
+						removeAt(last);
+						next = last;
+						last = -1;
+						expected = modifications;
+					}
+				};
+			}
+
+			@Override
+			public int size() {
+				return size;
+			}
+		};
+	}
+}
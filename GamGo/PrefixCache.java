@@ -0,0 +1,98 @@
+package GamGo;
+
+/**
+ * Bounded cache of the merged postings of prefixes, so a prefix searched again
+ * is neither expanded through the dictionary nor merged again, see
+ * {@link GenerationCache}. Each entry weighs one plus its number of postings.
+ * Merged scores also depend on the scorer, so an entry is only reused by
+ * searches with the same scorer.
+ */
+public class PrefixCache extends GenerationCache<PrefixCache.Merged> {
+	/**
+	 * default maximum total weight
+	 */
+	public static final int DEFAULT_CAPACITY = 1_000_000;
+
+	/**
+	 * initialize new instance with the default capacity
+	 */
+	public PrefixCache() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * initialize new instance
+	 *
+	 * @param capacity maximum total weight
+	 * @throws IllegalArgumentException if the capacity is not positive
+	 */
+	public PrefixCache(long capacity) {
+		super(capacity);
+	}
+
+	/**
+	 * Returns the cached postings of a prefix if they were merged with the given
+	 * scorer at the given generation or a later one
+	 *
+	 * @param prefix     the prefix
+	 * @param generation current generation of the index
+	 * @param scorer     scorer of the search, or null for the default score
+	 * @return the merged postings, or null if not cached
+	 */
+	public MergedPostings get(String prefix, long generation, Scorer scorer) {
+		Merged cached = lookup(prefix, generation, entry -> entry.scorer == scorer);
+		return cached == null ? null : cached.postings;
+	}
+
+	/**
+	 * Caches the merged postings of a prefix, evicting the least recently used
+	 * entries if the cache grows over its capacity. Postings heavier than the
+	 * whole capacity are not cached, and postings never replace those of a later
+	 * generation cached by another thread in the meantime.
+	 *
+	 * @param prefix     the prefix
+	 * @param postings   the merged postings
+	 * @param generation generation of the index the postings were merged at
+	 * @param scorer     scorer the postings were merged with, or null for the
+	 *                   default score
+	 */
+	public void put(String prefix, MergedPostings postings, long generation, Scorer scorer) {
+		store(prefix, new Merged(postings, scorer), generation);
+	}
+
+	/**
+	 * returns the weight of merged postings
+	 *
+	 * @param value the cached postings
+	 * @return one plus the number of postings
+	 */
+	@Override
+	protected long weigh(Merged value) {
+		return 1L + value.postings.size();
+	}
+
+	/**
+	 * merged postings of one prefix
+	 */
+	static class Merged {
+		/**
+		 * the merged postings
+		 */
+		private final MergedPostings postings;
+		/**
+		 * scorer the postings were merged with, or null for the default score
+		 */
+		private final Scorer scorer;
+
+		/**
+		 * initialize new instance
+		 *
+		 * @param postings the merged postings
+		 * @param scorer   scorer the postings were merged with
+		 */
+		public Merged(MergedPostings postings, Scorer scorer) {
+			this.postings = postings;
+			this.scorer = scorer;
+		}
+	}
+}
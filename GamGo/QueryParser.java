@@ -0,0 +1,145 @@
+package GamGo;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Turns query lines into their canonical {@link ParsedQuery}, keeping the most
+ * recently parsed lines in a bounded cache. The same line sent again, such as a
+ * popular search on the server, is then looked up instead of stemmed again.
+ * Lines that are not cached are stemmed outside of the lock through the shared
+ * {@link StemCache}. All methods are synchronized, so the parser can be shared
+ * between threads.
+ */
+public class QueryParser {
+	/**
+	 * default maximum number of cached lines
+	 */
+	public static final int DEFAULT_CAPACITY = 10_000;
+	/**
+	 * parsed queries by line, from least to most recently used
+	 */
+	private final LinkedHashMap<String, ParsedQuery> parsed;
+	/**
+	 * parsed queries with wildcard patterns by line, from least to most recently
+	 * used
+	 */
+	private final LinkedHashMap<String, ParsedQuery> patterns;
+	/**
+	 * number of lines found in the cache
+	 */
+	private long hits;
+	/**
+	 * number of lines that were stemmed
+	 */
+	private long misses;
+
+	/**
+	 * initialize new instance with the default capacity
+	 */
+	public QueryParser() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * initialize new instance
+	 *
+	 * @param capacity maximum number of cached lines
+	 * @throws IllegalArgumentException if the capacity is not positive
+	 */
+	public QueryParser(int capacity) {
+		if (capacity < 1) {
+			throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+		}
+		this.parsed = lru(capacity);
+		this.patterns = lru(capacity);
+	}
+
+	/**
+	 * creates an empty cache that evicts its least recently used line
+	 *
+	 * @param capacity maximum number of cached lines
+	 * @return the cache
+	 */
+	private static LinkedHashMap<String, ParsedQuery> lru(int capacity) {
+		return new LinkedHashMap<>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, ParsedQuery> eldest) {
+				return size() > capacity;
+			}
+		};
+	}
+
+	/**
+	 * returns the canonical form of a query line
+	 *
+	 * @param line the query line
+	 * @return the parsed query
+	 */
+	public ParsedQuery parse(String line) {
+		return parse(line, false);
+	}
+
+	/**
+	 * returns the canonical form of a query line that keeps words with wildcards
+	 * as patterns, such as "*ology"
+	 *
+	 * @param line the query line
+	 * @return the parsed query
+	 */
+	public ParsedQuery parseWildcards(String line) {
+		return parse(line, true);
+	}
+
+	/**
+	 * returns the canonical form of a query line from the cache of its kind
+	 *
+	 * @param line      the query line
+	 * @param wildcards whether words with wildcards are kept as patterns
+	 * @return the parsed query
+	 */
+	private ParsedQuery parse(String line, boolean wildcards) {
+		LinkedHashMap<String, ParsedQuery> cache = wildcards ? patterns : parsed;
+		synchronized (this) {
+			ParsedQuery query = cache.get(line);
+			if (query != null) {
+				hits++;
+				return query;
+			}
+			misses++;
+		}
+		ParsedQuery query = new ParsedQuery(QueryProcessorInterface.parseQuery(line, StemCache.getShared(), wildcards));
+		synchronized (this) {
+			cache.put(line, query);
+		}
+		return query;
+	}
+
+	/**
+	 * returns the number of lines found in the cache
+	 *
+	 * @return number of hits
+	 */
+	public synchronized long getHits() {
+		return hits;
+	}
+
+	/**
+	 * returns the number of lines that were stemmed
+	 *
+	 * @return number of misses
+	 */
+	public synchronized long getMisses() {
+		return misses;
+	}
+
+	/**
+	 * to string method
+	 */
+	@Override
+	public synchronized String toString() {
+		return "QueryParser[size=" + (parsed.size() + patterns.size()) + ", hits=" + hits + ", misses=" + misses + "]";
+	}
+}
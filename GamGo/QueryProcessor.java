@@ -1,7 +1,5 @@
 package GamGo;
 
-import static opennlp.tools.stemmer.snowball.SnowballStemmer.ALGORITHM.ENGLISH;
-
 import java.io.BufferedWriter;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
@@ -12,27 +10,28 @@ import java.util.Collections;
 import java.util.List;
 import java.util.SortedSet;
 import java.util.TreeMap;
-import java.util.TreeSet;
-
-import opennlp.tools.stemmer.Stemmer;
-import opennlp.tools.stemmer.snowball.SnowballStemmer;
+import java.util.function.Supplier;
 
 /**
  * class for processing query
  */
 public class QueryProcessor implements QueryProcessorInterface {
 	/**
-	 * sorted map to store results
+	 * sorted map to store results of the processed queries
+	 */
+	private final TreeMap<String, List<InvertedIndex.SearchResult>> results;
+	/**
+	 * bounded cache of recent search results
 	 */
-	private final TreeMap<String, ArrayList<InvertedIndex.SearchResult>> results;
+	private final ResultCache cache;
 	/**
 	 * the inverted index
 	 */
 	private final InvertedIndex index;
 	/**
-	 * stemmer to use
+	 * parser that caches the canonical form of query lines
 	 */
-	private final Stemmer stemmer;
+	private final QueryParser parser;
 
 	/**
 	 * initialize a new instance of inverted index
@@ -40,9 +39,29 @@ public class QueryProcessor implements QueryProcessorInterface {
 	 * @param index inverted index
 	 */
 	public QueryProcessor(InvertedIndex index) {
+		this(index, new ResultCache());
+	}
+
+	/**
+	 * initialize a new instance of inverted index with a result cache
+	 * 
+	 * @param index inverted index
+	 * @param cache cache of search results
+	 */
+	public QueryProcessor(InvertedIndex index, ResultCache cache) {
 		this.results = new TreeMap<>();
+		this.cache = cache;
 		this.index = index;
-		this.stemmer = new SnowballStemmer(ENGLISH);
+		this.parser = new QueryParser();
+	}
+
+	/**
+	 * returns the cache of search results
+	 *
+	 * @return the cache
+	 */
+	public ResultCache getCache() {
+		return cache;
 	}
 
 	@Override
@@ -65,7 +84,7 @@ public class QueryProcessor implements QueryProcessorInterface {
 	 *         list is returned
 	 */
 	public List<InvertedIndex.SearchResult> getResults(String query) {
-		String processedQuery = processLine(query, stemmer);
+		String processedQuery = parser.parse(query).getText();
 		List<InvertedIndex.SearchResult> queryResults = results.get(processedQuery);
 		if (queryResults != null) {
 			return Collections.unmodifiableList(queryResults);
@@ -93,18 +112,103 @@ public class QueryProcessor implements QueryProcessorInterface {
 	 * 
 	 * @param line    the query line to process
 	 * @param partial boolean indicating what search to use
+	 * @param and     boolean indicating if results must match every query word
+	 * @param limit   maximum number of results
 	 */
-	public void processQuery(String line, boolean partial) {
+	public void processQuery(String line, boolean partial, boolean and, int limit) {
 		if (line == null || line.isBlank()) {
 			return;
 		}
-		TreeSet<String> words = FileStemmer.uniqueStems(line, stemmer);
-		String processedQuery = String.join(" ", words);
-		if (!results.containsKey(processedQuery)) {
-			ArrayList<InvertedIndex.SearchResult> searchResult;
-			searchResult = index.search(words, partial);
-			results.put(processedQuery, searchResult);
+		ParsedQuery query = parser.parse(line);
+		results.put(query.getText(), search(query, partial, and, limit));
+	}
+
+	@Override
+	/**
+	 * Search a single query line
+	 * 
+	 * @param line    the query line to search
+	 * @param partial boolean indicating what search to use
+	 * @param and     boolean indicating if results must match every query word
+	 * @param limit   maximum number of results
+	 * @return unmodifiable list of search results
+	 */
+	public List<InvertedIndex.SearchResult> search(String line, boolean partial, boolean and, int limit) {
+		if (line == null || line.isBlank()) {
+			return Collections.emptyList();
+		}
+		return search(parser.parse(line), partial, and, limit);
+	}
+
+	@Override
+	/**
+	 * Search a single query line for the words within an edit distance
+	 * 
+	 * @param line     the query line to search
+	 * @param distance largest number of single character edits
+	 * @param and      boolean indicating if results must match every query word
+	 * @param limit    maximum number of results
+	 * @return unmodifiable list of search results
+	 */
+	public List<InvertedIndex.SearchResult> searchFuzzy(String line, int distance, boolean and, int limit) {
+		if (line == null || line.isBlank()) {
+			return Collections.emptyList();
+		}
+		ParsedQuery query = parser.parse(line);
+		return search(query.fuzzyKey(distance, and), limit,
+				() -> index.fuzzySearch(query.getWords(), distance, and, limit));
+	}
+
+	@Override
+	/**
+	 * Search a single query line whose words with wildcards are patterns
+	 * 
+	 * @param line    the query line to search
+	 * @param partial boolean indicating what search to use for the other words
+	 * @param and     boolean indicating if results must match every query word
+	 * @param limit   maximum number of results
+	 * @return unmodifiable list of search results
+	 */
+	public List<InvertedIndex.SearchResult> searchWildcard(String line, boolean partial, boolean and, int limit) {
+		if (line == null || line.isBlank()) {
+			return Collections.emptyList();
+		}
+		return search(parser.parseWildcards(line), partial, and, limit);
+	}
+
+	/**
+	 * looks up the results of a query in the cache, and searches the index if
+	 * they are not cached or the index changed since
+	 * 
+	 * @param query   parsed query
+	 * @param partial boolean indicating what search to use
+	 * @param and     boolean indicating if results must match every query word
+	 * @param limit   maximum number of results
+	 * @return unmodifiable list of search results
+	 */
+	private List<InvertedIndex.SearchResult> search(ParsedQuery query, boolean partial, boolean and, int limit) {
+		return search(query.key(partial, and), limit, () -> index.search(query.getWords(), partial, and, limit));
+	}
+
+	/**
+	 * looks up the results of a key in the cache, and searches the index if they
+	 * are not cached or the index changed since
+	 * 
+	 * @param key    key of the query and search mode
+	 * @param limit  maximum number of results
+	 * @param search searches the index on a miss
+	 * @return unmodifiable list of search results
+	 */
+	private List<InvertedIndex.SearchResult> search(String key, int limit,
+			Supplier<ArrayList<InvertedIndex.SearchResult>> search) {
+		long generation = index.getGeneration();
+		List<InvertedIndex.SearchResult> cached = cache.get(key, limit, generation);
+		if (cached != null) {
+			return cached;
 		}
+		ArrayList<InvertedIndex.SearchResult> searchResult = search.get();
+		cache.put(key, searchResult, limit, generation);
+		return Collections.unmodifiableList(searchResult);
 	}
 
 	/**
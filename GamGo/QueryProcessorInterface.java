@@ -6,7 +6,9 @@ import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.List;
+import java.util.Set;
 import java.util.SortedSet;
+import java.util.StringJoiner;
 import java.util.TreeSet;
 
 import opennlp.tools.stemmer.Stemmer;
@@ -56,8 +58,84 @@ public interface QueryProcessorInterface {
 	 *         spaces
 	 */
 	default String processLine(String line, Stemmer stemmer) {
-		TreeSet<String> words = FileStemmer.uniqueStems(line, stemmer);
-		return String.join(" ", words);
+		return joinQuery(parseQuery(line, stemmer));
+	}
+
+	/**
+	 * Parses a query line into a set of unique stemmed words. Text between double
+	 * quotes is a phrase, which is kept as its stemmed words in order joined by
+	 * single spaces, and only matches documents containing those words at
+	 * consecutive positions.
+	 *
+	 * @param line    the query line to parse
+	 * @param stemmer the stemmer to use
+	 * @return sorted set of stemmed words and phrases
+	 */
+	static TreeSet<String> parseQuery(String line, Stemmer stemmer) {
+		return parseQuery(line, stemmer, false);
+	}
+
+	/**
+	 * Parses a query line into a set of unique stemmed words, optionally keeping
+	 * words with {@value WildcardPattern#WILDCARD} wildcards as patterns. The text
+	 * of a pattern is cleaned like any other word, and the text after its last
+	 * wildcard is stemmed, since it ends the word like a stem does. Patterns
+	 * without any text are dropped.
+	 *
+	 * @param line      the query line to parse
+	 * @param stemmer   the stemmer to use
+	 * @param wildcards whether to keep patterns, instead of removing wildcards
+	 *                  like other symbols
+	 * @return sorted set of stemmed words, phrases and patterns
+	 */
+	static TreeSet<String> parseQuery(String line, Stemmer stemmer, boolean wildcards) {
+		TreeSet<String> words = new TreeSet<>();
+		String[] parts = line.split("\"", -1);
+		for (int i = 0; i < parts.length; i++) {
+			if (i % 2 == 1) {
+				List<String> phrase = FileStemmer.listStems(parts[i], stemmer);
+				if (!phrase.isEmpty()) {
+					words.add(String.join(" ", phrase));
+				}
+				continue;
+			}
+			if (!wildcards) {
+				FileStemmer.addStems(parts[i], stemmer, words);
+				continue;
+			}
+			for (String word : FileStemmer.split(parts[i])) {
+				if (!WildcardPattern.isWildcard(word)) {
+					FileStemmer.addStems(word, stemmer, words);
+					continue;
+				}
+				String[] texts = word.split("\\" + WildcardPattern.WILDCARD + "+", -1);
+				for (int j = 0; j < texts.length; j++) {
+					texts[j] = FileStemmer.clean(texts[j]);
+				}
+				String last = texts[texts.length - 1];
+				texts[texts.length - 1] = last.isEmpty() ? last : FileStemmer.stemWord(stemmer, last);
+				String pattern = String.join(String.valueOf(WildcardPattern.WILDCARD), texts);
+				if (!new WildcardPattern(pattern).getLiterals().isEmpty()) {
+					words.add(pattern);
+				}
+			}
+		}
+		return words;
+	}
+
+	/**
+	 * Joins parsed query words into the string used as key of the results, with
+	 * phrases surrounded by double quotes
+	 *
+	 * @param words words and phrases of the query
+	 * @return the joined query
+	 */
+	static String joinQuery(Set<String> words) {
+		StringJoiner joiner = new StringJoiner(" ");
+		for (String word : words) {
+			joiner.add(InvertedIndex.isPhrase(word) ? "\"" + word + "\"" : word);
+		}
+		return joiner.toString();
 	}
 
 	/**
@@ -68,10 +146,37 @@ public interface QueryProcessorInterface {
 	 * @throws IOException thrown exception
 	 */
 	default void processQuery(Path path, boolean partial) throws IOException {
+		processQuery(path, partial, false);
+	}
+
+	/**
+	 * Processes search queries from a given path.
+	 * 
+	 * @param path    path to use
+	 * @param partial boolean telling if should or not partial search
+	 * @param and     boolean telling if results must match every query word
+	 * @throws IOException thrown exception
+	 */
+	default void processQuery(Path path, boolean partial, boolean and) throws IOException {
+		processQuery(path, partial, and, TopResults.ALL);
+	}
+
+	/**
+	 * Processes search queries from a given path, keeping only the best results
+	 * of each query.
+	 * 
+	 * @param path    path to use
+	 * @param partial boolean telling if should or not partial search
+	 * @param and     boolean telling if results must match every query word
+	 * @param limit   maximum number of results per query, or
+	 *                {@link TopResults#ALL}
+	 * @throws IOException thrown exception
+	 */
+	default void processQuery(Path path, boolean partial, boolean and, int limit) throws IOException {
 		try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
 			while (reader.ready()) {
 				String line = reader.readLine();
-				processQuery(line, partial);
+				processQuery(line, partial, and, limit);
 			}
 		}
 	}
@@ -82,5 +187,71 @@ public interface QueryProcessorInterface {
 	 * @param line    the query line to process
 	 * @param partial boolean indicating what search to use
 	 */
-	void processQuery(String line, boolean partial);
+	default void processQuery(String line, boolean partial) {
+		processQuery(line, partial, false);
+	}
+
+	/**
+	 * Processes a single query line.
+	 * 
+	 * @param line    the query line to process
+	 * @param partial boolean indicating what search to use
+	 * @param and     boolean indicating if results must match every query word
+	 */
+	default void processQuery(String line, boolean partial, boolean and) {
+		processQuery(line, partial, and, TopResults.ALL);
+	}
+
+	/**
+	 * Processes a single query line, keeping only the best results. The results
+	 * are kept with the processed queries written by {@link #writeResults(Path)}.
+	 * 
+	 * @param line    the query line to process
+	 * @param partial boolean indicating what search to use
+	 * @param and     boolean indicating if results must match every query word
+	 * @param limit   maximum number of results, or {@link TopResults#ALL}
+	 */
+	void processQuery(String line, boolean partial, boolean and, int limit);
+
+	/**
+	 * Searches a single query line without keeping it with the processed queries.
+	 * Results are looked up in a bounded cache first, and only searched if the
+	 * cache cannot answer the limit.
+	 * 
+	 * @param line    the query line to search
+	 * @param partial boolean indicating what search to use
+	 * @param and     boolean indicating if results must match every query word
+	 * @param limit   maximum number of results, or {@link TopResults#ALL}
+	 * @return unmodifiable list of at most limit results
+	 */
+	List<? extends InvertedIndex.SearchResult> search(String line, boolean partial, boolean and, int limit);
+
+	/**
+	 * Searches a single query line for the words within an edit distance of each
+	 * query word, so a misspelled query still finds results. Results are cached
+	 * like those of {@link #search(String, boolean, boolean, int)}.
+	 * 
+	 * @param line     the query line to search
+	 * @param distance largest number of single character edits, at most
+	 *                 {@value LevenshteinAutomaton#MAX_DISTANCE}
+	 * @param and      boolean indicating if results must match every query word
+	 * @param limit    maximum number of results, or {@link TopResults#ALL}
+	 * @return unmodifiable list of at most limit results
+	 * @throws IllegalArgumentException if the distance is not supported
+	 */
+	List<? extends InvertedIndex.SearchResult> searchFuzzy(String line, int distance, boolean and, int limit);
+
+	/**
+	 * Searches a single query line in which words with
+	 * {@value WildcardPattern#WILDCARD} wildcards match every word of their
+	 * pattern, such as "*ology" or "*graph*". Results are cached like those of
+	 * {@link #search(String, boolean, boolean, int)}.
+	 * 
+	 * @param line    the query line to search
+	 * @param partial boolean indicating what search to use for the other words
+	 * @param and     boolean indicating if results must match every query word
+	 * @param limit   maximum number of results, or {@link TopResults#ALL}
+	 * @return unmodifiable list of at most limit results
+	 */
+	List<? extends InvertedIndex.SearchResult> searchWildcard(String line, boolean partial, boolean and, int limit);
 }
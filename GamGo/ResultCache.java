@@ -0,0 +1,105 @@
+package GamGo;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Bounded cache of search results keyed by query, see {@link GenerationCache}.
+ * Each entry weighs one plus its number of results. Results searched with a
+ * limit are only reused for requests they can fully answer.
+ */
+public class ResultCache extends GenerationCache<ResultCache.Results> {
+	/**
+	 * default maximum total weight
+	 */
+	public static final int DEFAULT_CAPACITY = 100_000;
+
+	/**
+	 * initialize new instance with the default capacity
+	 */
+	public ResultCache() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * initialize new instance
+	 *
+	 * @param capacity maximum total weight
+	 * @throws IllegalArgumentException if the capacity is not positive
+	 */
+	public ResultCache(long capacity) {
+		super(capacity);
+	}
+
+	/**
+	 * Returns the cached results of a query if they answer a search with the
+	 * given limit at the given generation. They do if they were searched at that
+	 * generation or a later one, and if the cached search found fewer results than its own
+	 * limit, so it found every result, or at least as many as asked for.
+	 *
+	 * @param query      the query
+	 * @param limit      maximum number of results
+	 * @param generation current generation of the index
+	 * @return unmodifiable list of at most limit results, or null if not cached
+	 */
+	public List<InvertedIndex.SearchResult> get(String query, int limit, long generation) {
+		Results cached = lookup(query, generation,
+				entry -> entry.results.size() < entry.limit || entry.results.size() >= limit);
+		if (cached == null) {
+			return null;
+		}
+		List<InvertedIndex.SearchResult> results = cached.results;
+		return results.size() > limit ? results.subList(0, limit) : results;
+	}
+
+	/**
+	 * Caches the results of a query, evicting the least recently used entries if
+	 * the cache grows over its capacity. Results heavier than the whole capacity
+	 * are not cached, and results never replace those of a later generation
+	 * cached by another thread in the meantime.
+	 *
+	 * @param query      the query
+	 * @param results    sorted results
+	 * @param limit      maximum number of results the query was searched with
+	 * @param generation generation of the index the query was searched at
+	 */
+	public void put(String query, List<? extends InvertedIndex.SearchResult> results, int limit, long generation) {
+		store(query, new Results(results, limit), generation);
+	}
+
+	/**
+	 * returns the weight of cached results
+	 *
+	 * @param value the cached results
+	 * @return one plus the number of results
+	 */
+	@Override
+	protected long weigh(Results value) {
+		return 1L + value.results.size();
+	}
+
+	/**
+	 * cached results of one query
+	 */
+	static class Results {
+		/**
+		 * sorted results
+		 */
+		private final List<InvertedIndex.SearchResult> results;
+		/**
+		 * maximum number of results the query was searched with
+		 */
+		private final int limit;
+
+		/**
+		 * initialize new instance
+		 *
+		 * @param results sorted results
+		 * @param limit   maximum number of results the query was searched with
+		 */
+		public Results(List<? extends InvertedIndex.SearchResult> results, int limit) {
+			this.results = Collections.unmodifiableList(results);
+			this.limit = limit;
+		}
+	}
+}
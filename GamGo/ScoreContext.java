@@ -0,0 +1,142 @@
+package GamGo;
+
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Statistics a {@link Scorer} needs for one version of an index: the number of
+ * live documents, their average length, and the length norm of every document.
+ * The number of documents and the average length are kept up to date by the
+ * {@link DocumentTable}, so they are read in constant time. The norms of a
+ * frozen snapshot are computed once into an array indexed by document ID and
+ * reused by every search, while an index that is still being built computes
+ * them from the word counts as postings are scored, since the average length
+ * changes with every added document.
+ */
+public class ScoreContext {
+	/**
+	 * scorer to use
+	 */
+	private final Scorer scorer;
+	/**
+	 * number of live documents
+	 */
+	private final int documents;
+	/**
+	 * average number of words per live document
+	 */
+	private final double averageLength;
+	/**
+	 * word count of each document ID
+	 */
+	private final IntUnaryOperator lengths;
+	/**
+	 * length norm indexed by document ID, or null to compute it from the length
+	 */
+	private final double[] norms;
+
+	/**
+	 * Reads the statistics of the documents from the document table, computing
+	 * the norms as postings are scored
+	 *
+	 * @param scorer  scorer to use
+	 * @param table   document table
+	 * @param lengths word count of each document ID
+	 */
+	public ScoreContext(Scorer scorer, DocumentTable table, IntUnaryOperator lengths) {
+		this(scorer, table, lengths, 0, false);
+	}
+
+	/**
+	 * Reads the statistics of the documents from the document table and computes
+	 * the norm of every document up front
+	 *
+	 * @param scorer  scorer to use
+	 * @param table   document table
+	 * @param lengths word count of each document ID
+	 * @param count   number of document IDs to compute norms for
+	 */
+	public ScoreContext(Scorer scorer, DocumentTable table, IntUnaryOperator lengths, int count) {
+		this(scorer, table, lengths, count, true);
+	}
+
+	/**
+	 * Reads the statistics of the documents from the document table
+	 *
+	 * @param scorer     scorer to use
+	 * @param table      document table
+	 * @param lengths    word count of each document ID
+	 * @param count      number of document IDs to compute norms for
+	 * @param precompute whether to compute the norm of every document up front
+	 */
+	private ScoreContext(Scorer scorer, DocumentTable table, IntUnaryOperator lengths, int count,
+			boolean precompute) {
+		synchronized (table) {
+			this.documents = table.numLive();
+			this.averageLength = table.getAverageLength();
+		}
+		this.scorer = scorer;
+		this.lengths = lengths;
+		if (precompute) {
+			this.norms = new double[count];
+			for (int id = 0; id < count; id++) {
+				norms[id] = scorer.norm(lengths.applyAsInt(id), averageLength);
+			}
+		} else {
+			this.norms = null;
+		}
+	}
+
+	/**
+	 * returns the scorer
+	 *
+	 * @return the scorer
+	 */
+	public Scorer getScorer() {
+		return scorer;
+	}
+
+	/**
+	 * returns the weight of a word
+	 *
+	 * @param documentFrequency number of postings of the word
+	 * @return the weight
+	 */
+	public double weight(int documentFrequency) {
+		return scorer.weight(documentFrequency, documents);
+	}
+
+	/**
+	 * returns the score of one posting
+	 *
+	 * @param frequency number of times the word occurs in the document
+	 * @param weight    weight of the word
+	 * @param document  document ID
+	 * @return the score
+	 */
+	public double score(int frequency, double weight, int document) {
+		double norm = norms != null ? norms[document]
+				: scorer.norm(lengths.applyAsInt(document), averageLength);
+		return scorer.score(frequency, weight, norm);
+	}
+
+	/**
+	 * returns an upper bound on the score of the postings of a word
+	 *
+	 * @param frequency highest frequency of the word in any document
+	 * @param weight    weight of the word
+	 * @param length    word count of the shortest document containing the word
+	 * @return the bound
+	 */
+	public double bound(int frequency, double weight, int length) {
+		return scorer.score(frequency, weight, scorer.norm(length, averageLength));
+	}
+
+	/**
+	 * to string method
+	 */
+	@Override
+	public String toString() {
+		return "ScoreContext[scorer=" + scorer + ", documents=" + documents + ", averageLength=" + averageLength
+				+ "]";
+	}
+}
@@ -0,0 +1,46 @@
+package GamGo;
+
+/**
+ * Scoring function for search results. The score of a document is the sum of a
+ * score for every posting of a query word it contains. Each word is weighted
+ * once from its document frequency, and each document is normalized once from
+ * its length, so scoring a posting is plain arithmetic on precomputed values.
+ *
+ * Searches without a scorer keep the default score of the number of matches
+ * divided by the number of words in the document.
+ *
+ * Ranked searches skip documents whose best possible score cannot make it into
+ * the results, bounding the score of a word by its highest frequency and its
+ * shortest document. A score must therefore never decrease as the frequency
+ * grows or increase as the norm grows, and a norm must never decrease as the
+ * length grows.
+ */
+public interface Scorer {
+	/**
+	 * returns the weight of a word
+	 *
+	 * @param documentFrequency number of documents containing the word
+	 * @param documents         number of documents in the index
+	 * @return the weight
+	 */
+	double weight(int documentFrequency, int documents);
+
+	/**
+	 * returns the length norm of a document
+	 *
+	 * @param length        number of words in the document
+	 * @param averageLength average number of words per document
+	 * @return the norm
+	 */
+	double norm(int length, double averageLength);
+
+	/**
+	 * returns the score of one posting
+	 *
+	 * @param frequency number of times the word occurs in the document
+	 * @param weight    weight of the word
+	 * @param norm      length norm of the document
+	 * @return the score
+	 */
+	double score(int frequency, double weight, double norm);
+}
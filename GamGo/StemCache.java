@@ -0,0 +1,196 @@
+package GamGo;
+
+import static opennlp.tools.stemmer.snowball.SnowballStemmer.ALGORITHM.ENGLISH;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import opennlp.tools.stemmer.Stemmer;
+import opennlp.tools.stemmer.snowball.SnowballStemmer;
+
+/**
+ * Bounded cache of English stems by word, shared between threads. Stemmers are
+ * not thread safe, so a word that is not cached is stemmed with the stemmer of
+ * the current thread, and lookups take no lock.
+ *
+ * Word frequencies are heavily skewed, so the few thousand words that make up
+ * most of any text are cached within the first documents. Once the cache is
+ * full it stops admitting words instead of evicting them, and the rare words
+ * left over are stemmed every time. The cache counts its hits, misses and the
+ * misses that were not admitted.
+ */
+public class StemCache implements Stemmer {
+	/**
+	 * default maximum number of cached words
+	 */
+	public static final int DEFAULT_CAPACITY = 200_000;
+	/**
+	 * cache shared by the text processors, the web crawler and the query parsers
+	 */
+	private static final StemCache SHARED = new StemCache(DEFAULT_CAPACITY);
+	/**
+	 * stemmer of each thread
+	 */
+	private static final ThreadLocal<SnowballStemmer> STEMMERS = ThreadLocal
+			.withInitial(() -> new SnowballStemmer(ENGLISH));
+	/**
+	 * stems by word
+	 */
+	private final ConcurrentHashMap<String, String> stems;
+	/**
+	 * maximum number of cached words
+	 */
+	private final int capacity;
+	/**
+	 * number of cached words
+	 */
+	private final AtomicInteger size;
+	/**
+	 * number of words found in the cache
+	 */
+	private final LongAdder hits;
+	/**
+	 * number of words that were stemmed
+	 */
+	private final LongAdder misses;
+	/**
+	 * number of stemmed words not cached because the cache was full
+	 */
+	private final LongAdder rejected;
+
+	/**
+	 * initialize new instance with the default capacity
+	 */
+	public StemCache() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * initialize new instance
+	 *
+	 * @param capacity maximum number of cached words
+	 * @throws IllegalArgumentException if the capacity is not positive
+	 */
+	public StemCache(int capacity) {
+		if (capacity < 1) {
+			throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+		}
+		this.stems = new ConcurrentHashMap<>(Math.min(capacity, 1 << 16));
+		this.capacity = capacity;
+		this.size = new AtomicInteger();
+		this.hits = new LongAdder();
+		this.misses = new LongAdder();
+		this.rejected = new LongAdder();
+	}
+
+	/**
+	 * returns the cache shared by every thread
+	 *
+	 * @return the shared cache
+	 */
+	public static StemCache getShared() {
+		return SHARED;
+	}
+
+	/**
+	 * returns the stem of a word, from the cache if it was stemmed before
+	 *
+	 * @param word the word to stem
+	 * @return the stem
+	 */
+	@Override
+	public String stem(CharSequence word) {
+		String key = word.toString();
+		String stem = stems.get(key);
+		if (stem != null) {
+			hits.increment();
+			return stem;
+		}
+		misses.increment();
+		stem = STEMMERS.get().stem(key).toString();
+		if (size.get() >= capacity) {
+			rejected.increment();
+			return stem;
+		}
+		String old = stems.putIfAbsent(key, stem);
+		if (old != null) {
+			return old;
+		}
+		size.incrementAndGet();
+		return stem;
+	}
+
+	/**
+	 * removes every word
+	 */
+	public void clear() {
+		stems.clear();
+		size.set(0);
+	}
+
+	/**
+	 * returns the number of cached words
+	 *
+	 * @return number of words
+	 */
+	public int size() {
+		return size.get();
+	}
+
+	/**
+	 * returns the maximum number of cached words
+	 *
+	 * @return the capacity
+	 */
+	public int getCapacity() {
+		return capacity;
+	}
+
+	/**
+	 * returns the number of words found in the cache
+	 *
+	 * @return number of hits
+	 */
+	public long getHits() {
+		return hits.sum();
+	}
+
+	/**
+	 * returns the number of words that were stemmed
+	 *
+	 * @return number of misses
+	 */
+	public long getMisses() {
+		return misses.sum();
+	}
+
+	/**
+	 * returns the number of stemmed words not cached because the cache was full
+	 *
+	 * @return number of rejected words
+	 */
+	public long getRejected() {
+		return rejected.sum();
+	}
+
+	/**
+	 * returns the share of words found in the cache
+	 *
+	 * @return hits divided by lookups, or 0 if nothing was looked up
+	 */
+	public double getHitRate() {
+		long found = hits.sum();
+		long total = found + misses.sum();
+		return total == 0 ? 0 : (double) found / total;
+	}
+
+	/**
+	 * to string method
+	 */
+	@Override
+	public String toString() {
+		return String.format("StemCache[size=%d/%d, hits=%d, misses=%d, rejected=%d, hitRate=%.3f]", size(), capacity,
+				getHits(), getMisses(), getRejected(), getHitRate());
+	}
+}
@@ -0,0 +1,304 @@
+package GamGo;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * Packed trie over a sorted array of terms, used to find every term that starts
+ * with a prefix. Since the terms are sorted, the terms below any node of the
+ * trie form a contiguous range of term IDs, so a prefix lookup walks down the
+ * trie one node per branching character and returns that range directly. The
+ * cost of a lookup depends on the length of the prefix, and listing the matches
+ * on their number, instead of searching and comparing strings.
+ *
+ * Chains of nodes with a single child are collapsed into one edge, and only the
+ * first character of each edge label is stored, the rest is read from the first
+ * term below the node. Nodes are stored in parallel arrays, with the children
+ * of a node stored next to each other in order of their first character.
+ *
+ * The same walk finds the terms within an edit distance of a word, reading the
+ * trie into a {@link LevenshteinAutomaton} and skipping every node no accepted
+ * term is below.
+ */
+public class TermDictionary {
+	/**
+	 * sorted terms
+	 */
+	private final String[] terms;
+	/**
+	 * number of characters matched at each node
+	 */
+	private int[] depths;
+	/**
+	 * first term ID below each node
+	 */
+	private int[] termFrom;
+	/**
+	 * term ID after the last term below each node
+	 */
+	private int[] termTo;
+	/**
+	 * index of the first child of each node
+	 */
+	private int[] firstChild;
+	/**
+	 * number of children of each node
+	 */
+	private int[] childCount;
+	/**
+	 * first character of the edge into each node, so the children of a node are
+	 * told apart without reading their terms
+	 */
+	private char[] labels;
+	/**
+	 * number of nodes
+	 */
+	private int nodes;
+	/**
+	 * length of the longest term
+	 */
+	private final int maxLength;
+
+	/**
+	 * Builds the trie breadth first, so the children of every node are added next
+	 * to each other
+	 *
+	 * @param terms sorted terms without duplicates
+	 */
+	public TermDictionary(String[] terms) {
+		this.terms = terms;
+		int capacity = Math.max(1, terms.length * 2);
+		this.depths = new int[capacity];
+		this.termFrom = new int[capacity];
+		this.termTo = new int[capacity];
+		this.firstChild = new int[capacity];
+		this.childCount = new int[capacity];
+		this.labels = new char[capacity];
+		this.nodes = 0;
+		int longest = 0;
+		for (String term : terms) {
+			longest = Math.max(longest, term.length());
+		}
+		this.maxLength = longest;
+		if (terms.length == 0) {
+			return;
+		}
+		addNode(0, terms.length, '\0');
+		for (int node = 0; node < nodes; node++) {
+			int from = termFrom[node];
+			int to = termTo[node];
+			int depth = depths[node];
+			firstChild[node] = nodes;
+			if (terms[from].length() == depth) {
+				from++;
+			}
+			while (from < to) {
+				char next = terms[from].charAt(depth);
+				int end = from + 1;
+				while (end < to && terms[end].charAt(depth) == next) {
+					end++;
+				}
+				addNode(from, end, next);
+				from = end;
+			}
+			childCount[node] = nodes - firstChild[node];
+		}
+	}
+
+	/**
+	 * adds a node for a range of terms, matching their longest common prefix
+	 *
+	 * @param from  first term ID
+	 * @param to    term ID after the last term
+	 * @param label first character of the edge into the node
+	 */
+	private void addNode(int from, int to, char label) {
+		if (nodes == depths.length) {
+			int grown = nodes * 2;
+			depths = Arrays.copyOf(depths, grown);
+			termFrom = Arrays.copyOf(termFrom, grown);
+			termTo = Arrays.copyOf(termTo, grown);
+			firstChild = Arrays.copyOf(firstChild, grown);
+			childCount = Arrays.copyOf(childCount, grown);
+			labels = Arrays.copyOf(labels, grown);
+		}
+		depths[nodes] = commonPrefix(terms[from], terms[to - 1]);
+		termFrom[nodes] = from;
+		termTo[nodes] = to;
+		labels[nodes] = label;
+		nodes++;
+	}
+
+	/**
+	 * returns the length of the common prefix of two terms
+	 *
+	 * @param first  first term
+	 * @param second second term
+	 * @return number of equal leading characters
+	 */
+	private static int commonPrefix(String first, String second) {
+		int length = Math.min(first.length(), second.length());
+		int i = 0;
+		while (i < length && first.charAt(i) == second.charAt(i)) {
+			i++;
+		}
+		return i;
+	}
+
+	/**
+	 * Finds the node whose terms all start with the prefix
+	 *
+	 * @param prefix prefix to find
+	 * @return the node, or -1 if no term starts with the prefix
+	 */
+	private int findNode(String prefix) {
+		if (nodes == 0) {
+			return -1;
+		}
+		int node = 0;
+		int matched = 0;
+		while (true) {
+			int end = Math.min(depths[node], prefix.length());
+			if (!terms[termFrom[node]].regionMatches(matched, prefix, matched, end - matched)) {
+				return -1;
+			}
+			if (prefix.length() <= depths[node]) {
+				return node;
+			}
+			matched = depths[node];
+			node = findChild(node, prefix.charAt(matched));
+			if (node < 0) {
+				return -1;
+			}
+		}
+	}
+
+	/**
+	 * finds the child of a node whose edge starts with a character
+	 *
+	 * @param node parent node
+	 * @param next character to follow
+	 * @return the child, or -1 if there is none
+	 */
+	private int findChild(int node, char next) {
+		int low = firstChild[node];
+		int high = low + childCount[node] - 1;
+		while (low <= high) {
+			int middle = (low + high) >>> 1;
+			if (labels[middle] < next) {
+				low = middle + 1;
+			} else if (labels[middle] > next) {
+				high = middle - 1;
+			} else {
+				return middle;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * returns the range of term IDs of the terms that start with a prefix
+	 *
+	 * @param prefix prefix to find
+	 * @return the first term ID and the term ID after the last match, which are
+	 *         equal if no term starts with the prefix
+	 */
+	public int[] prefixRange(String prefix) {
+		int node = findNode(prefix);
+		return node < 0 ? new int[] { 0, 0 } : new int[] { termFrom[node], termTo[node] };
+	}
+
+	/**
+	 * Returns the IDs of the terms accepted by a Levenshtein automaton. The trie is
+	 * walked depth first, reading the characters of every edge into the automaton
+	 * once, and a node is skipped with all the terms below it as soon as none of
+	 * them can be accepted. Only the nodes within the edit distance of the word
+	 * are visited, instead of comparing the word with every term.
+	 *
+	 * @param automaton automaton accepting the terms within an edit distance of a
+	 *                  word
+	 * @return sorted IDs of the accepted terms
+	 */
+	public int[] fuzzy(LevenshteinAutomaton automaton) {
+		IntStream.Builder found = IntStream.builder();
+		if (nodes > 0) {
+			int[][] states = new int[maxLength + 1][];
+			states[0] = automaton.start();
+			for (int depth = 1; depth < states.length; depth++) {
+				states[depth] = new int[states[0].length];
+			}
+			fuzzy(0, 0, states, automaton, found);
+		}
+		return found.build().toArray();
+	}
+
+	/**
+	 * reads the edge of a node into the automaton, then adds the accepted terms
+	 * at and below the node
+	 *
+	 * @param node      node to walk
+	 * @param matched   number of characters read before the edge
+	 * @param states    state of the automaton after reading each number of
+	 *                  characters, of which the first matched plus one are set
+	 * @param automaton the automaton
+	 * @param found     builder to add the accepted term IDs to
+	 */
+	private void fuzzy(int node, int matched, int[][] states, LevenshteinAutomaton automaton,
+			IntStream.Builder found) {
+		String label = terms[termFrom[node]];
+		int depth = depths[node];
+		for (int i = matched; i < depth; i++) {
+			if (!automaton.step(states[i], label.charAt(i), states[i + 1])) {
+				return;
+			}
+		}
+		if (label.length() == depth && automaton.isMatch(states[depth])) {
+			found.add(termFrom[node]);
+		}
+		for (int child = firstChild[node]; child < firstChild[node] + childCount[node]; child++) {
+			if (automaton.step(states[depth], labels[child], states[depth + 1])) {
+				fuzzy(child, depth + 1, states, automaton, found);
+			}
+		}
+	}
+
+	/**
+	 * returns the ID of a term
+	 *
+	 * @param term term to find
+	 * @return the term ID, or -1 if not present
+	 */
+	public int find(String term) {
+		int node = findNode(term);
+		if (node < 0 || terms[termFrom[node]].length() != term.length()) {
+			return -1;
+		}
+		return termFrom[node];
+	}
+
+	/**
+	 * returns the number of terms
+	 *
+	 * @return number of terms
+	 */
+	public int size() {
+		return terms.length;
+	}
+
+	/**
+	 * returns the number of trie nodes
+	 *
+	 * @return number of nodes
+	 */
+	public int numNodes() {
+		return nodes;
+	}
+
+	/**
+	 * to string method
+	 */
+	@Override
+	public String toString() {
+		return "TermDictionary[terms=" + terms.length + ", nodes=" + nodes + "]";
+	}
+}
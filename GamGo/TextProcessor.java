@@ -6,9 +6,8 @@ import java.nio.charset.StandardCharsets;
 import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
-
-import opennlp.tools.stemmer.snowball.SnowballStemmer;
-import opennlp.tools.stemmer.snowball.SnowballStemmer.ALGORITHM;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * class for processing, extracting stems, and building an inverted index
@@ -33,6 +32,66 @@ public class TextProcessor {
 		}
 	}
 
+	/**
+	 * lists the text files within the path recursively, or the path itself if it
+	 * is not a directory
+	 * 
+	 * @param inputPath path to use
+	 * @return list of files
+	 * @throws IOException exception thrown
+	 */
+	public static List<Path> listFiles(Path inputPath) throws IOException {
+		List<Path> files = new ArrayList<>();
+		if (Files.isDirectory(inputPath)) {
+			listDirectory(inputPath, files);
+		} else {
+			files.add(inputPath);
+		}
+		return files;
+	}
+
+	/**
+	 * adds the text files within the directory recursively to the list
+	 * 
+	 * @param path  directory to use
+	 * @param files list to add to
+	 * @throws IOException exception thrown
+	 */
+	private static void listDirectory(Path path, List<Path> files) throws IOException {
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(path)) {
+			for (Path paths : stream) {
+				if (Files.isDirectory(paths)) {
+					listDirectory(paths, files);
+				} else if (isText(paths)) {
+					files.add(paths);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Re-indexes only the files that were added or modified since the manifest
+	 * was last updated, and removes the postings of modified and deleted files.
+	 * The manifest is updated to match the files on disk, and every file is
+	 * recorded in it once it was indexed.
+	 * 
+	 * @param index     index to use
+	 * @param inputPath path to use
+	 * @param manifest  manifest of the files already in the index
+	 * @return the changes that were applied
+	 * @throws IOException exception thrown
+	 */
+	public static Manifest.Changes update(InvertedIndex index, Path inputPath, Manifest manifest)
+			throws IOException {
+		Manifest.Changes changes = manifest.update(listFiles(inputPath));
+		index.removeDocuments(changes.getRemoved());
+		for (Path file : changes.getChanged()) {
+			processFile(file, index);
+			manifest.commit(changes, file);
+		}
+		return changes;
+	}
+
 	/**
 	 * Check to see if it is a textfile
 	 * 
@@ -70,13 +129,13 @@ public class TextProcessor {
 	public static void processFile(Path path, InvertedIndex index) throws IOException {
 		try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
 			String line;
-			SnowballStemmer stemmer = new SnowballStemmer(ALGORITHM.ENGLISH);
+			StemCache stemmer = StemCache.getShared();
 			int position = 0;
 			String location = path.toString();
 			while (reader.ready()) {
 				line = reader.readLine();
 				for (String stemmedWords : FileStemmer.parse(line)) {
-					index.addIndex(stemmer.stem(stemmedWords).toString(), location, ++position);
+					index.addIndex(stemmer.stem(stemmedWords), location, ++position);
 				}
 			}
 		}
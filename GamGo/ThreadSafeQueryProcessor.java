@@ -1,7 +1,5 @@
 package GamGo;
 
-import static opennlp.tools.stemmer.snowball.SnowballStemmer.ALGORITHM.ENGLISH;
-
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.IOException;
@@ -13,10 +11,7 @@ import java.util.Collections;
 import java.util.List;
 import java.util.SortedSet;
 import java.util.TreeMap;
-import java.util.TreeSet;
-
-import opennlp.tools.stemmer.Stemmer;
-import opennlp.tools.stemmer.snowball.SnowballStemmer;
+import java.util.function.Supplier;
 
 /**
  * ThreadSafeQueryProcessor extends QueryProcessor with thread-safe operations
@@ -30,15 +25,19 @@ public class ThreadSafeQueryProcessor implements QueryProcessorInterface {
 	/**
 	 * initialize
 	 */
-	private final TreeMap<String, ArrayList<ThreadedInvertedIndex.SearchResult>> results;
+	private final TreeMap<String, List<ThreadedInvertedIndex.SearchResult>> results;
+	/**
+	 * bounded cache of recent search results, shared by every thread
+	 */
+	private final ResultCache cache;
 	/**
 	 * initialize
 	 */
 	private final WorkQueue workqueue;
 	/**
-	 * initialize
+	 * parser that caches the canonical form of query lines
 	 */
-	private final Stemmer stemmer;
+	private final QueryParser parser;
 
 	/**
 	 * Constructor with threaded inverted index
@@ -47,10 +46,31 @@ public class ThreadSafeQueryProcessor implements QueryProcessorInterface {
 	 * @param workqueue workqueue to use
 	 */
 	public ThreadSafeQueryProcessor(ThreadedInvertedIndex index, WorkQueue workqueue) {
+		this(index, workqueue, new ResultCache());
+	}
+
+	/**
+	 * Constructor with threaded inverted index and a result cache
+	 * 
+	 * @param index     threaded inverted index instance
+	 * @param workqueue workqueue to use
+	 * @param cache     cache of search results
+	 */
+	public ThreadSafeQueryProcessor(ThreadedInvertedIndex index, WorkQueue workqueue, ResultCache cache) {
 		this.results = new TreeMap<>();
+		this.cache = cache;
 		this.index = index;
 		this.workqueue = workqueue;
-		this.stemmer = new SnowballStemmer(ENGLISH);
+		this.parser = new QueryParser();
+	}
+
+	/**
+	 * returns the cache of search results
+	 *
+	 * @return the cache
+	 */
+	public ResultCache getCache() {
+		return cache;
 	}
 
 	/**
@@ -68,9 +88,9 @@ public class ThreadSafeQueryProcessor implements QueryProcessorInterface {
 	 */
 	@Override
 	public List<ThreadedInvertedIndex.SearchResult> getResults(String query) {
-		String processedQuery = processLine(query, stemmer);
+		String processedQuery = parser.parse(query).getText();
 		synchronized (this) {
-			ArrayList<ThreadedInvertedIndex.SearchResult> searchResults = results.get(processedQuery);
+			List<ThreadedInvertedIndex.SearchResult> searchResults = results.get(processedQuery);
 			if (searchResults != null) {
 				return Collections.unmodifiableList(searchResults);
 			} else {
@@ -96,14 +116,16 @@ public class ThreadSafeQueryProcessor implements QueryProcessorInterface {
 	 * 
 	 * @param path    path to use
 	 * @param partial boolean for search method
+	 * @param and     boolean for matching every query word
+	 * @param limit   maximum number of results per query
 	 * @throws IOException thrown exception
 	 */
 	@Override
-	public void processQuery(Path path, boolean partial) throws IOException {
+	public void processQuery(Path path, boolean partial, boolean and, int limit) throws IOException {
 		try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
 			while (reader.ready()) {
 				String line = reader.readLine();
-				workqueue.execute(new Task(line, partial));
+				workqueue.execute(new Task(line, partial, and, limit));
 			}
 		}
 		workqueue.finish();
@@ -113,19 +135,93 @@ public class ThreadSafeQueryProcessor implements QueryProcessorInterface {
 	 * processes single query line
 	 */
 	@Override
-	public void processQuery(String line, boolean partial) {
+	public void processQuery(String line, boolean partial, boolean and, int limit) {
 		if (line == null || line.isBlank()) {
 			return;
 		}
-		TreeSet<String> words = FileStemmer.uniqueStems(line);
-		String processedQuery = String.join(" ", words);
-
+		ParsedQuery query = parser.parse(line);
+		List<ThreadedInvertedIndex.SearchResult> searchResult = search(query, partial, and, limit);
 		synchronized (this) {
-			if (!results.containsKey(processedQuery)) {
-				ArrayList<ThreadedInvertedIndex.SearchResult> searchResult = index.search(words, partial);
-				results.put(processedQuery, searchResult);
-			}
+			results.put(query.getText(), searchResult);
+		}
+	}
+
+	/**
+	 * searches single query line through the cache, without keeping it with the
+	 * processed queries
+	 */
+	@Override
+	public List<ThreadedInvertedIndex.SearchResult> search(String line, boolean partial, boolean and, int limit) {
+		if (line == null || line.isBlank()) {
+			return Collections.emptyList();
 		}
+		return search(parser.parse(line), partial, and, limit);
+	}
+
+	/**
+	 * searches single query line for the words within an edit distance through
+	 * the cache, without keeping it with the processed queries
+	 */
+	@Override
+	public List<ThreadedInvertedIndex.SearchResult> searchFuzzy(String line, int distance, boolean and, int limit) {
+		if (line == null || line.isBlank()) {
+			return Collections.emptyList();
+		}
+		ParsedQuery query = parser.parse(line);
+		return search(query.fuzzyKey(distance, and), limit,
+				() -> index.fuzzySearch(query.getWords(), distance, and, limit));
+	}
+
+	/**
+	 * searches single query line whose words with wildcards are patterns through
+	 * the cache, without keeping it with the processed queries
+	 */
+	@Override
+	public List<ThreadedInvertedIndex.SearchResult> searchWildcard(String line, boolean partial, boolean and,
+			int limit) {
+		if (line == null || line.isBlank()) {
+			return Collections.emptyList();
+		}
+		return search(parser.parseWildcards(line), partial, and, limit);
+	}
+
+	/**
+	 * looks up the results of a query in the cache, and searches the index if
+	 * they are not cached or the index changed since
+	 * 
+	 * @param query   parsed query
+	 * @param partial boolean for search method
+	 * @param and     boolean for matching every query word
+	 * @param limit   maximum number of results
+	 * @return unmodifiable list of search results
+	 */
+	private List<ThreadedInvertedIndex.SearchResult> search(ParsedQuery query, boolean partial, boolean and,
+			int limit) {
+		return search(query.key(partial, and), limit, () -> index.search(query.getWords(), partial, and, limit));
+	}
+
+	/**
+	 * Looks up the results of a key in the cache, and searches the index if they
+	 * are not cached or the index changed since. The generation is read before
+	 * searching, so results that raced with a write are searched again next time.
+	 * The index is searched outside of any lock, so threads missing the same query
+	 * at once may both search it.
+	 * 
+	 * @param key    key of the query and search mode
+	 * @param limit  maximum number of results
+	 * @param search searches the index on a miss
+	 * @return unmodifiable list of search results
+	 */
+	private List<ThreadedInvertedIndex.SearchResult> search(String key, int limit,
+			Supplier<ArrayList<ThreadedInvertedIndex.SearchResult>> search) {
+		long generation = index.getGeneration();
+		List<ThreadedInvertedIndex.SearchResult> cached = cache.get(key, limit, generation);
+		if (cached != null) {
+			return cached;
+		}
+		ArrayList<ThreadedInvertedIndex.SearchResult> searchResult = search.get();
+		cache.put(key, searchResult, limit, generation);
+		return Collections.unmodifiableList(searchResult);
 	}
 
 	/**
@@ -150,16 +246,28 @@ public class ThreadSafeQueryProcessor implements QueryProcessorInterface {
 		 * initialize
 		 */
 		private final boolean partial;
+		/**
+		 * initialize
+		 */
+		private final boolean and;
+		/**
+		 * initialize
+		 */
+		private final int limit;
 
 		/**
 		 * constructor
 		 * 
 		 * @param line    line to process
 		 * @param partial true or false to what search to call
+		 * @param and     true or false to match every query word
+		 * @param limit   maximum number of results
 		 */
-		public Task(String line, boolean partial) {
+		public Task(String line, boolean partial, boolean and, int limit) {
 			this.line = line;
 			this.partial = partial;
+			this.and = and;
+			this.limit = limit;
 		}
 
 		/**
@@ -167,7 +275,7 @@ public class ThreadSafeQueryProcessor implements QueryProcessorInterface {
 		 */
 		@Override
 		public void run() {
-			processQuery(line, partial);
+			processQuery(line, partial, and, limit);
 		}
 	}
 }
@@ -1,364 +1,700 @@
 package GamGo;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.BufferedWriter;
 import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
-import java.util.SortedMap;
 import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 /**
- * class ThreadedInvertedIndex that has all methods from inverted index but
- * using locks
+ * class ThreadedInvertedIndex that supports every method of the inverted index
+ * from many threads at once, without a read-write lock
+ *
+ * The index is a list of immutable {@link IndexSnapshot} segments that is
+ * replaced as a whole whenever it changes. Readers take the current list
+ * without any lock and search it, so a search never waits for a writer. Writers
+ * build a segment from a local index outside of any lock and then publish a new
+ * list that holds it, which only takes a short lock to swap the list. A merge
+ * policy combines every {@value #MERGE_FACTOR} segments of similar size into
+ * one larger segment in the background, so the number of segments stays
+ * logarithmic in the size of the index. Every document keeps a single ID in the
+ * shared document table, so searches combine the counts per document across
+ * the segments.
+ *
+ * Words added one at a time with {@link #addIndex(String, String, int)} are
+ * collected in pending indexes that register their documents in the shared
+ * table right away. The pending indexes are partitioned into
+ * {@value #DEFAULT_SHARDS} shards by the hash of the word, each with its own
+ * lock, so threads adding different words rarely wait for each other. The
+ * pending words of every shard are published as a single segment by the next
+ * add of a whole index and before any read, so a caller always reads back what
+ * it added without publishing a segment for every word.
  */
 public class ThreadedInvertedIndex extends InvertedIndex {
 	/**
-	 * initialize lock
+	 * number of segments of similar size that are merged together
+	 */
+	public static final int MERGE_FACTOR = 8;
+	/**
+	 * number of shards the pending words are partitioned into
 	 */
-	private final MultiReaderLock lock;
+	public static final int DEFAULT_SHARDS = 16;
+
+	/**
+	 * work queue that runs merges, or null to merge in the writing thread
+	 */
+	private final WorkQueue workqueue;
+	/**
+	 * published segments, replaced as a whole whenever it changes
+	 */
+	private volatile List<IndexSnapshot> segments;
+	/**
+	 * segments that are currently being merged
+	 */
+	private final Set<IndexSnapshot> merging;
+	/**
+	 * number of merges that have not finished
+	 */
+	private int pendingMerges;
+	/**
+	 * guards publishing a new segment list and the merge bookkeeping
+	 */
+	private final Object segmentLock;
+	/**
+	 * words added one at a time that are not published yet, partitioned by the
+	 * hash of the word and each guarded by itself
+	 */
+	private final InvertedIndex[] pending;
+	/**
+	 * whether any shard may hold pending words
+	 */
+	private volatile boolean hasPending;
+	/**
+	 * held for reading while adding words or segments and for writing while
+	 * publishing the pending words or freezing, taken before the segment lock
+	 */
+	private final ReentrantReadWriteLock pendingLock;
 
 	/**
 	 * initialize new instance
-	 * 
+	 *
 	 */
 	public ThreadedInvertedIndex() {
-		this.lock = new MultiReaderLock();
+		this((WorkQueue) null);
 	}
 
 	/**
-	 * adds entry to the inverted index
-	 * 
-	 * @param word     string word to use
-	 * @param filePath path to use
-	 * @param place    integer place
+	 * initialize new instance that merges segments in the background
+	 *
+	 * @param workqueue work queue used to run merges, or null to merge in the
+	 *                  writing thread
 	 */
-	@Override
-	public void addIndex(String word, String filePath, int place) {
-		lock.writeLock().lock();
-		try {
-			super.addIndex(word, filePath, place);
-		} finally {
-			lock.writeLock().unlock();
+	public ThreadedInvertedIndex(WorkQueue workqueue) {
+		this(workqueue, new DocumentTable());
+	}
+
+	/**
+	 * initialize new instance that assigns document IDs from a shared table, such
+	 * as the table of a loaded snapshot that is being updated
+	 *
+	 * @param workqueue work queue used to run merges, or null to merge in the
+	 *                  writing thread
+	 * @param documents the document table to use
+	 */
+	public ThreadedInvertedIndex(WorkQueue workqueue, DocumentTable documents) {
+		super(documents);
+		this.workqueue = workqueue;
+		this.segments = List.of();
+		this.merging = new HashSet<>();
+		this.pendingMerges = 0;
+		this.segmentLock = new Object();
+		this.pending = new InvertedIndex[DEFAULT_SHARDS];
+		for (int i = 0; i < pending.length; i++) {
+			pending[i] = new InvertedIndex(getDocuments());
 		}
+		this.hasPending = false;
+		this.pendingLock = new ReentrantReadWriteLock();
 	}
 
 	/**
-	 * to string method
+	 * initialize a frozen instance that answers everything from a snapshot
+	 *
+	 * @param snapshot the snapshot to use
 	 */
-	@Override
-	public String toString() {
-		lock.readLock().lock();
-		try {
-			return super.toString();
-		} finally {
-			lock.readLock().unlock();
+	public ThreadedInvertedIndex(IndexSnapshot snapshot) {
+		super(snapshot);
+		this.workqueue = null;
+		this.segments = List.of();
+		this.merging = new HashSet<>();
+		this.pendingMerges = 0;
+		this.segmentLock = new Object();
+		this.pending = new InvertedIndex[DEFAULT_SHARDS];
+		for (int i = 0; i < pending.length; i++) {
+			pending[i] = new InvertedIndex(getDocuments());
 		}
+		this.hasPending = false;
+		this.pendingLock = new ReentrantReadWriteLock();
 	}
 
 	/**
-	 * adds list of words to inverted index with given location and starting
-	 * position
-	 * 
-	 * @param words    words to add
-	 * @param location location of word found
-	 * @param start    starting position
+	 * Turns this index into a single immutable snapshot by publishing the pending
+	 * words, waiting for background merges and merging every segment into one.
 	 */
 	@Override
-	public void addAll(List<String> words, String location, int start) {
-		lock.writeLock().lock();
+	public void freeze() {
+		pendingLock.writeLock().lock();
 		try {
-			super.addAll(words, location, start);
+			flush();
+			synchronized (segmentLock) {
+				if (isFrozen()) {
+					return;
+				}
+				awaitMerges();
+				super.freeze(IndexSnapshot.merge(segments, getDocuments(), true));
+				segments = List.of();
+			}
 		} finally {
-			lock.writeLock().unlock();
+			pendingLock.writeLock().unlock();
 		}
 	}
 
 	/**
-	 * checks if there is a count for given location
-	 * 
-	 * @param location location to check
-	 * @return true if count has a location
+	 * Publishes the words added one at a time as a single segment, so every later
+	 * read sees them. Does nothing if there are none. Holds the write lock, so no
+	 * word is added to a shard meanwhile.
 	 */
-	@Override
-	public boolean hasCount(String location) {
-		lock.readLock().lock();
+	private void flush() {
+		if (!hasPending) {
+			return;
+		}
+		pendingLock.writeLock().lock();
 		try {
-			return super.hasCount(location);
+			if (!hasPending) {
+				return;
+			}
+			List<IndexSnapshot> shards = new ArrayList<>();
+			for (InvertedIndex shard : pending) {
+				if (shard.size() > 0) {
+					shards.add(shard.toSegment());
+					shard.clear();
+				}
+			}
+			hasPending = false;
+			if (shards.size() == 1) {
+				publish(shards.get(0));
+			} else if (shards.size() > 1) {
+				publish(IndexSnapshot.merge(shards, getDocuments(), false));
+			}
 		} finally {
-			lock.readLock().unlock();
+			pendingLock.writeLock().unlock();
 		}
 	}
 
 	/**
-	 * checks if inverted index contains a entry for given word
-	 * 
-	 * @param word word to use
-	 * @return true if word is present
+	 * returns the generation of the index, after publishing the pending words
+	 *
+	 * @return the generation
 	 */
 	@Override
-	public boolean hasWord(String word) {
-		lock.readLock().lock();
-		try {
-			return super.hasWord(word);
-		} finally {
-			lock.readLock().unlock();
+	public long getGeneration() {
+		flush();
+		return super.getGeneration();
+	}
+
+	/**
+	 * Waits until no merge is running, so the segment list can be replaced without
+	 * a merge publishing stale segments afterwards. Must be called while holding
+	 * the segment lock.
+	 */
+	private void awaitMerges() {
+		boolean interrupted = false;
+		while (pendingMerges > 0) {
+			try {
+				segmentLock.wait();
+			} catch (InterruptedException e) {
+				interrupted = true;
+			}
+		}
+		if (interrupted) {
+			Thread.currentThread().interrupt();
 		}
 	}
 
 	/**
-	 * checks if inverted index has entry for given word and location
-	 * 
-	 * @param word     word to check
-	 * @param location location to check
-	 * @return true if location and word are present
+	 * Publishes a new segment list that also holds a segment
+	 *
+	 * @param segment segment to add
+	 * @throws IllegalStateException if the index was frozen in the meantime
 	 */
-	@Override
-	public boolean hasLocation(String word, String location) {
-		lock.readLock().lock();
-		try {
-			return super.hasLocation(word, location);
-		} finally {
-			lock.readLock().unlock();
+	private void publish(IndexSnapshot segment) {
+		synchronized (segmentLock) {
+			if (isFrozen()) {
+				throw new IllegalStateException("Cannot add to a frozen index.");
+			}
+			ArrayList<IndexSnapshot> updated = new ArrayList<>(segments);
+			updated.add(segment);
+			segments = Collections.unmodifiableList(updated);
 		}
+		advanceGeneration();
+		scheduleMerge();
 	}
 
 	/**
-	 * check if inverted index has specified position for given word and location
-	 * 
-	 * @param word     word to check
-	 * @param location location to check
-	 * @param position position to check
-	 * @return true if all are present
+	 * Adds a segment that assigns document IDs from the same table as this index,
+	 * such as a loaded snapshot that is being updated. The segment is used as it
+	 * is instead of being copied.
+	 *
+	 * @param segment segment to add
+	 * @throws IllegalArgumentException if the segment uses a different table
 	 */
 	@Override
-	public boolean hasPosition(String word, String location, int position) {
-		lock.readLock().lock();
+	public void addSegment(IndexSnapshot segment) {
+		checkNotFrozen();
+		flush();
+		if (segment.getDocuments() != getDocuments()) {
+			throw new IllegalArgumentException("Segment uses a different document table.");
+		}
+		pendingLock.readLock().lock();
 		try {
-			return super.hasPosition(word, location, position);
+			publish(segment);
 		} finally {
-			lock.readLock().unlock();
+			pendingLock.readLock().unlock();
 		}
 	}
 
 	/**
-	 * write the inverted index for specified file path in Json format
-	 * 
-	 * @param path path to use
-	 * @throws IOException exception
+	 * Physically removes the postings of deleted documents by rewriting every
+	 * segment that still holds some. Merges purge them as well, so this is only
+	 * needed to reclaim space right away. Searches keep using the old segments
+	 * until the new list is published.
 	 */
 	@Override
-	public void writeIndex(Path path) throws IOException {
-		lock.readLock().lock();
-		try {
-			super.writeIndex(path);
-		} finally {
-			lock.readLock().unlock();
+	public void compact() {
+		if (isFrozen()) {
+			super.compact();
+			return;
+		}
+		flush();
+		synchronized (segmentLock) {
+			awaitMerges();
+			ArrayList<IndexSnapshot> updated = new ArrayList<>();
+			for (IndexSnapshot segment : segments) {
+				IndexSnapshot compacted = segment.compact();
+				if (compacted.size() > 0) {
+					updated.add(compacted);
+				}
+			}
+			segments = Collections.unmodifiableList(updated);
 		}
 	}
 
 	/**
-	 * write counts map to file path in Json format
-	 * 
-	 * @param path path to use
-	 * @throws IOException exception thrown
+	 * Starts a merge if there are enough segments of similar size. Segments are
+	 * grouped by size into tiers that grow by {@value #MERGE_FACTOR} times, so
+	 * every position is only merged a logarithmic number of times.
 	 */
-	@Override
-	public void writeCounts(Path path) throws IOException {
-		lock.readLock().lock();
-		try {
-			super.writeCounts(path);
-		} finally {
-			lock.readLock().unlock();
+	private void scheduleMerge() {
+		List<IndexSnapshot> candidates = null;
+		synchronized (segmentLock) {
+			if (isFrozen()) {
+				return;
+			}
+			Map<Integer, List<IndexSnapshot>> tiers = new HashMap<>();
+			for (IndexSnapshot segment : segments) {
+				if (merging.contains(segment)) {
+					continue;
+				}
+				int tier = 0;
+				for (long limit = MERGE_FACTOR; segment.size() >= limit; limit *= MERGE_FACTOR) {
+					tier++;
+				}
+				List<IndexSnapshot> same = tiers.computeIfAbsent(tier, k -> new ArrayList<>());
+				same.add(segment);
+				if (same.size() == MERGE_FACTOR) {
+					candidates = same;
+					break;
+				}
+			}
+			if (candidates == null) {
+				return;
+			}
+			merging.addAll(candidates);
+			pendingMerges++;
+		}
+		List<IndexSnapshot> selected = candidates;
+		if (workqueue != null) {
+			workqueue.execute(() -> merge(selected));
+		} else {
+			merge(selected);
 		}
 	}
 
 	/**
-	 * Returns number of words in inverted index
-	 * 
-	 * @return the number of words
+	 * Merges segments and replaces them with the result, moving the index to a
+	 * new generation, see {@link #getGeneration()}. Readers that still hold the
+	 * old list see the same postings, so they are not affected.
+	 *
+	 * @param candidates segments to merge
 	 */
-	@Override
-	public int numWords() {
-		lock.readLock().lock();
+	private void merge(List<IndexSnapshot> candidates) {
 		try {
-			return super.numWords();
+			IndexSnapshot merged = IndexSnapshot.merge(candidates, getDocuments(), false);
+			synchronized (segmentLock) {
+				ArrayList<IndexSnapshot> updated = new ArrayList<>();
+				for (IndexSnapshot segment : segments) {
+					if (!candidates.contains(segment)) {
+						updated.add(segment);
+					} else if (segment == candidates.get(0)) {
+						updated.add(merged);
+					}
+				}
+				segments = Collections.unmodifiableList(updated);
+			}
+			advanceGeneration();
+			scheduleMerge();
 		} finally {
-			lock.readLock().unlock();
+			synchronized (segmentLock) {
+				merging.removeAll(candidates);
+				pendingMerges--;
+				segmentLock.notifyAll();
+			}
 		}
 	}
 
 	/**
-	 * returns the word counts in inverted index
-	 * 
-	 * @return the counts
+	 * returns the number of published segments
+	 *
+	 * @return number of segments
+	 */
+	public int numSegments() {
+		flush();
+		return segments.size();
+	}
+
+	/**
+	 * returns the number of positions in every segment
+	 *
+	 * @return number of positions
 	 */
 	@Override
-	public int numCounts() {
-		lock.readLock().lock();
-		try {
-			return super.numCounts();
-		} finally {
-			lock.readLock().unlock();
+	public int size() {
+		flush();
+		List<IndexSnapshot> current = segments;
+		if (isFrozen()) {
+			return super.size();
+		}
+		int size = 0;
+		for (IndexSnapshot segment : current) {
+			size += segment.size();
 		}
+		return size;
 	}
 
 	/**
-	 * return the number of positions where an inputed word appears in specified
-	 * location
-	 * 
-	 * @param word     word to find
-	 * @param location location to look
-	 * @return positions number of positions
+	 * Adds a single word to the pending index of its shard, locking only that
+	 * shard. It is published together with the other pending words by the next
+	 * add of a whole index or read, instead of as a segment of its own.
+	 *
+	 * @param word     string word to use
+	 * @param filePath path to use
+	 * @param place    integer place
+	 * @throws IllegalStateException if the index is frozen
 	 */
 	@Override
-	public int numPositions(String word, String location) {
-		lock.readLock().lock();
+	public void addIndex(String word, String filePath, int place) {
+		pendingLock.readLock().lock();
 		try {
-			return super.numPositions(word, location);
+			checkNotFrozen();
+			InvertedIndex shard = pending[Math.floorMod(word.hashCode(), pending.length)];
+			synchronized (shard) {
+				shard.addIndex(word, filePath, place);
+			}
+			hasPending = true;
 		} finally {
-			lock.readLock().unlock();
+			pendingLock.readLock().unlock();
 		}
 	}
 
 	/**
-	 * return the number of paths where an inputed word appears
-	 * 
-	 * @param word word to find
-	 * @return int paths
+	 * to string method
 	 */
 	@Override
-	public int numPaths(String word) {
-		lock.readLock().lock();
-		try {
-			return super.numPaths(word);
-		} finally {
-			lock.readLock().unlock();
+	public String toString() {
+		flush();
+		List<IndexSnapshot> current = segments;
+		if (isFrozen()) {
+			return super.toString();
 		}
+		return "ThreadedInvertedIndex" + current;
 	}
 
 	/**
-	 * return unmodifiable sorted set of words in inverted index
-	 * 
-	 * @return unmodifiable sorted set
+	 * adds list of words to inverted index with given location and starting
+	 * position, publishing them as a single segment
+	 *
+	 * @param words    words to add
+	 * @param location location of word found
+	 * @param start    starting position
+	 * @throws IllegalStateException if the index is frozen
 	 */
 	@Override
-	public SortedSet<String> getWords() {
-		lock.readLock().lock();
-		try {
-			return super.getWords();
-		} finally {
-			lock.readLock().unlock();
-		}
+	public void addAll(List<String> words, String location, int start) {
+		checkNotFrozen();
+		InvertedIndex local = new InvertedIndex();
+		local.addAll(words, location, start);
+		addDistinct(local);
 	}
 
 	/**
-	 * return an unmodifiable sorted set of paths where a given word appears in
-	 * inverted index
-	 * 
-	 * @param word word to look
-	 * @return unmodifiable sorted set
+	 * checks if inverted index contains a entry for given word
+	 *
+	 * @param word word to use
+	 * @return true if word is present
 	 */
 	@Override
-	public SortedSet<String> getPaths(String word) {
-		lock.readLock().lock();
-		try {
-			return super.getPaths(word);
-		} finally {
-			lock.readLock().unlock();
+	public boolean hasWord(String word) {
+		flush();
+		List<IndexSnapshot> current = segments;
+		if (isFrozen()) {
+			return super.hasWord(word);
+		}
+		for (IndexSnapshot segment : current) {
+			if (segment.hasWord(word)) {
+				return true;
+			}
 		}
+		return false;
 	}
 
 	/**
-	 * return an unmodifiable sorted set of positions where a word is given with a
-	 * location
-	 * 
+	 * returns the positions of a word and document combined from every segment
+	 *
 	 * @param word     word to look
-	 * @param location place to look
-	 * @return unmodifiable sorted set
+	 * @param document document ID to look
+	 * @return the positions or null
 	 */
 	@Override
-	public SortedSet<Integer> getPositions(String word, String location) {
-		lock.readLock().lock();
-		try {
-			return super.getPositions(word, location);
-		} finally {
-			lock.readLock().unlock();
+	protected PositionList getPositionList(String word, int document) {
+		flush();
+		List<IndexSnapshot> current = segments;
+		if (isFrozen()) {
+			return super.getPositionList(word, document);
+		}
+		PositionList positions = null;
+		boolean copied = false;
+		for (IndexSnapshot segment : current) {
+			PositionList found = segment.getPositionList(word, document);
+			if (found == null) {
+				continue;
+			}
+			if (positions == null) {
+				positions = found;
+			} else {
+				if (!copied) {
+					positions = new PositionList(positions);
+					copied = true;
+				}
+				positions.addAll(found);
+			}
 		}
+		return positions;
 	}
 
 	/**
-	 * returns unmodifiable sorted map of the counts
-	 * 
-	 * @return unmodifiable sorted map
+	 * write the inverted index for specified file path in Json format, merging the
+	 * segments into a single sorted view
+	 *
+	 * @param path path to use
+	 * @throws IOException exception
 	 */
+	@Override
+	public void writeIndex(Path path) throws IOException {
+		flush();
+		List<IndexSnapshot> current = segments;
+		if (isFrozen()) {
+			super.writeIndex(path);
+			return;
+		}
+		try (BufferedWriter writer = Files.newBufferedWriter(path, UTF_8)) {
+			IndexSnapshot.merge(current, getDocuments(), false).writeIndex(writer);
+		}
+	}
 
+	/**
+	 * return unmodifiable sorted set of words in inverted index, merged from every
+	 * segment
+	 *
+	 * @return unmodifiable sorted set
+	 */
 	@Override
-	public SortedMap<String, Integer> getCounts() {
-		lock.readLock().lock();
-		try {
-			return super.getCounts();
-		} finally {
-			lock.readLock().unlock();
+	public SortedSet<String> getWords() {
+		flush();
+		List<IndexSnapshot> current = segments;
+		if (isFrozen()) {
+			return super.getWords();
 		}
+		TreeSet<String> words = new TreeSet<>();
+		for (IndexSnapshot segment : current) {
+			words.addAll(segment.getWords());
+		}
+		return Collections.unmodifiableSortedSet(words);
 	}
 
 	/**
 	 * get sorted set of locations where the word appears in the inverted index
-	 * 
+	 *
 	 * @param word word to find
 	 * @return sorted set of locations
 	 */
 	@Override
 	public SortedSet<String> getLocation(String word) {
-		lock.readLock().lock();
-		try {
+		flush();
+		List<IndexSnapshot> current = segments;
+		if (isFrozen()) {
 			return super.getLocation(word);
-		} finally {
-			lock.readLock().unlock();
 		}
+		TreeSet<String> locations = new TreeSet<>();
+		for (IndexSnapshot segment : current) {
+			locations.addAll(segment.getLocation(word));
+		}
+		return Collections.unmodifiableSortedSet(locations);
 	}
 
+	/**
+	 * Adds entries from a local index built by a single thread. The local index is
+	 * turned into a segment and then published, so neither searches nor other
+	 * writers wait while it is built. The word counts are added first, so a search
+	 * that already sees the new postings also sees their counts. The add holds the
+	 * read lock of the pending words and checks for a frozen index before
+	 * registering any document, so an add racing with {@link #freeze()} either
+	 * finishes first or fails without leaving counted documents behind.
+	 *
+	 * @param other index to add
+	 * @throws IllegalStateException if the index is frozen
+	 */
 	@Override
 	public void addDistinct(InvertedIndex other) {
-		lock.writeLock().lock();
+		checkNotFrozen();
+		flush();
+		pendingLock.readLock().lock();
 		try {
-			super.addDistinct(other);
+			checkNotFrozen();
+			IndexSnapshot segment = toSegment(other, getDocuments());
+			if (segment != null) {
+				publish(segment);
+			}
 		} finally {
-			lock.writeLock().unlock();
+			pendingLock.readLock().unlock();
 		}
 	}
 
 	/**
-	 * Performs exact search on the set of queries
+	 * Registers the documents and word counts of a local index in a document table
+	 * and turns its postings into a segment that uses the IDs of that table
 	 *
-	 * @param queries set of queries to perform exact search
-	 * @return An arrayList of SearchResult objects
+	 * @param other     local index built by a single thread
+	 * @param documents the document table to register the documents in
+	 * @return the segment, or null if the local index has no postings
+	 * @throws IllegalArgumentException if the local index is frozen
 	 */
-	@Override
-	public ArrayList<SearchResult> exactSearch(Set<String> queries) {
-		lock.readLock().lock();
-		try {
-			return super.exactSearch(queries);
-		} finally {
-			lock.readLock().unlock();
+	static IndexSnapshot toSegment(InvertedIndex other, DocumentTable documents) {
+		if (other.isFrozen()) {
+			throw new IllegalArgumentException("Cannot add from a frozen index.");
+		}
+		DocumentTable otherDocuments = other.getDocuments();
+		int[] ids = documents.addAll(otherDocuments);
+		for (int i = 0; i < ids.length; i++) {
+			if (ids[i] >= 0) {
+				documents.addCount(ids[i], otherDocuments.getCount(i));
+			}
+		}
+		TreeMap<String, TreeMap<Integer, PositionList>> remapped = new TreeMap<>();
+		for (var entry : other.postings().entrySet()) {
+			TreeMap<Integer, PositionList> postings = new TreeMap<>();
+			for (var posting : entry.getValue().entrySet()) {
+				int id = ids[posting.getKey()];
+				if (id >= 0) {
+					postings.put(id, posting.getValue());
+				}
+			}
+			if (!postings.isEmpty()) {
+				remapped.put(entry.getKey(), postings);
+			}
 		}
+		return remapped.isEmpty() ? null : IndexSnapshot.segment(remapped, documents);
 	}
 
 	/**
-	 * Performs a partial search on the set of words
+	 * Returns cursors over the postings of every segment. The segment list is read
+	 * once, so the search sees a single consistent version of the index. It is
+	 * read before checking whether the index is frozen, since freezing publishes
+	 * the snapshot before emptying the list, so a search running while the index
+	 * is frozen finds either every segment or the snapshot.
 	 *
-	 * @param words set of words
-	 * @return An ArrayList of SearchResult objects
+	 * @param words   words to search
+	 * @param partial whether words are prefixes
+	 * @return cursors of each word
 	 */
 	@Override
-	public ArrayList<SearchResult> searchPartial(Set<String> words) {
-		lock.readLock().lock();
-		try {
-			return super.searchPartial(words);
-		} finally {
-			lock.readLock().unlock();
+	protected List<List<PostingCursor>> cursors(Set<String> words, boolean partial) {
+		flush();
+		List<IndexSnapshot> current = segments;
+		if (isFrozen()) {
+			return super.cursors(words, partial);
+		}
+		List<List<PostingCursor>> cursors = new ArrayList<>();
+		for (String word : words) {
+			List<PostingCursor> wordCursors = new ArrayList<>();
+			for (IndexSnapshot segment : current) {
+				segment.cursors(word, partial, wordCursors);
+			}
+			cursors.add(wordCursors);
 		}
+		return cursors;
 	}
 
+	/**
+	 * Returns cursors over the postings of the terms within an edit distance of
+	 * each word in every segment, reading the segment list once
+	 *
+	 * @param words    words to search
+	 * @param distance largest number of single character edits
+	 * @return cursors of each word
+	 * @throws IllegalArgumentException if the distance is not supported
+	 */
+	@Override
+	protected List<List<PostingCursor>> fuzzyCursors(Set<String> words, int distance) {
+		flush();
+		List<IndexSnapshot> current = segments;
+		if (isFrozen()) {
+			return super.fuzzyCursors(words, distance);
+		}
+		List<List<PostingCursor>> cursors = new ArrayList<>();
+		for (String word : words) {
+			List<PostingCursor> wordCursors = new ArrayList<>();
+			LevenshteinAutomaton automaton = isPhrase(word) || WildcardPattern.isWildcard(word) ? null
+					: new LevenshteinAutomaton(word, distance);
+			for (IndexSnapshot segment : current) {
+				if (automaton == null) {
+					segment.cursors(word, false, wordCursors);
+				} else {
+					segment.cursors(automaton, wordCursors);
+				}
+			}
+			cursors.add(wordCursors);
+		}
+		return cursors;
+	}
 }
@@ -31,12 +31,28 @@ public class ThreadedTextProcessor {
 	 */
 	public static void processDirectory(ThreadedInvertedIndex multithread, Path path, WorkQueue workqueue)
 			throws IOException {
+		processDirectory(multithread, path, workqueue, null);
+	}
+
+	/**
+	 * Processes all text files within path recursively, adding to thread-local
+	 * indexes if given
+	 *
+	 * @param multithread the multihtread instance for indexing
+	 * @param path        path to use
+	 * @param workqueue   workqueue to use
+	 * @param locals      thread-local indexes to add to, or null to add every file
+	 *                    to the multithread instance
+	 * @throws IOException thrown error IO
+	 */
+	private static void processDirectory(ThreadedInvertedIndex multithread, Path path, WorkQueue workqueue,
+			LocalIndexes locals) throws IOException {
 		try (DirectoryStream<Path> stream = Files.newDirectoryStream(path)) {
 			for (Path paths : stream) {
 				if (Files.isDirectory(paths)) {
-					processDirectory(multithread, paths, workqueue);
+					processDirectory(multithread, paths, workqueue, locals);
 				} else if (TextProcessor.isText(paths)) {
-					workqueue.execute(new Task(paths, multithread));
+					workqueue.execute(new Task(paths, multithread, locals));
 				}
 			}
 		}
@@ -54,12 +70,96 @@ public class ThreadedTextProcessor {
 	 */
 	public static void process(ThreadedInvertedIndex multithread, Path inputPath, WorkQueue workqueue)
 			throws IOException, InterruptedException {
+		process(multithread, inputPath, workqueue, false);
+	}
+
+	/**
+	 * Starts the processing of path for indexing. When reducing, every worker
+	 * keeps its own index across files and the indexes are combined pairwise once
+	 * all files are done, instead of adding every file to the multithread
+	 * instance.
+	 *
+	 * @param multithread the multithread instance for indexing
+	 * @param inputPath   path to use
+	 * @param workqueue   workqueue to use
+	 * @param reduce      whether to use thread-local indexes
+	 * @throws IOException          thrown IO error
+	 * @throws InterruptedException thrown interruptedException
+	 */
+	public static void process(ThreadedInvertedIndex multithread, Path inputPath, WorkQueue workqueue,
+			boolean reduce) throws IOException, InterruptedException {
+		LocalIndexes locals = reduce ? new LocalIndexes(multithread.getDocuments()) : null;
 		if (Files.isDirectory(inputPath)) {
-			processDirectory(multithread, inputPath, workqueue);
+			processDirectory(multithread, inputPath, workqueue, locals);
 		} else {
-			workqueue.execute(new Task(inputPath, multithread));
+			workqueue.execute(new Task(inputPath, multithread, locals));
 		}
 		workqueue.finish();
+		addReduced(multithread, locals, workqueue);
+	}
+
+	/**
+	 * combines the thread-local indexes and adds the result to the multithread
+	 * instance
+	 *
+	 * @param multithread the multithread instance for indexing
+	 * @param locals      thread-local indexes, or null if not reducing
+	 * @param workqueue   workqueue to use
+	 */
+	private static void addReduced(ThreadedInvertedIndex multithread, LocalIndexes locals, WorkQueue workqueue) {
+		if (locals == null) {
+			return;
+		}
+		logger.debug("Reducing the local indexes of {} threads", locals.size());
+		IndexSnapshot reduced = locals.reduce(workqueue);
+		if (reduced != null) {
+			multithread.addSegment(reduced);
+		}
+	}
+
+	/**
+	 * Re-indexes only the files that were added or modified since the manifest
+	 * was last updated, and removes the postings of modified and deleted files
+	 *
+	 * @param multithread the multithread instance for indexing
+	 * @param inputPath   path to use
+	 * @param manifest    manifest of the files already in the index
+	 * @param workqueue   workqueue to use
+	 * @return the changes that were applied
+	 * @throws IOException          thrown IO error
+	 * @throws InterruptedException thrown interruptedException
+	 */
+	public static Manifest.Changes update(ThreadedInvertedIndex multithread, Path inputPath, Manifest manifest,
+			WorkQueue workqueue) throws IOException, InterruptedException {
+		return update(multithread, inputPath, manifest, workqueue, false);
+	}
+
+	/**
+	 * Re-indexes only the files that were added or modified since the manifest
+	 * was last updated, optionally using thread-local indexes. Every file is
+	 * recorded in the manifest once it was indexed, so a file that failed to be
+	 * read is indexed again by the next run.
+	 *
+	 * @param multithread the multithread instance for indexing
+	 * @param inputPath   path to use
+	 * @param manifest    manifest of the files already in the index
+	 * @param workqueue   workqueue to use
+	 * @param reduce      whether to use thread-local indexes
+	 * @return the changes that were applied
+	 * @throws IOException          thrown IO error
+	 * @throws InterruptedException thrown interruptedException
+	 */
+	public static Manifest.Changes update(ThreadedInvertedIndex multithread, Path inputPath, Manifest manifest,
+			WorkQueue workqueue, boolean reduce) throws IOException, InterruptedException {
+		Manifest.Changes changes = manifest.update(TextProcessor.listFiles(inputPath));
+		multithread.removeDocuments(changes.getRemoved());
+		LocalIndexes locals = reduce ? new LocalIndexes(multithread.getDocuments()) : null;
+		for (Path file : changes.getChanged()) {
+			workqueue.execute(new Task(file, multithread, locals, manifest, changes));
+		}
+		workqueue.finish();
+		addReduced(multithread, locals, workqueue);
+		return changes;
 	}
 
 	/**
@@ -75,16 +175,49 @@ public class ThreadedTextProcessor {
 		 * initialize
 		 */
 		private final ThreadedInvertedIndex multithread;
+		/**
+		 * thread-local indexes, or null to add to the multithread instance
+		 */
+		private final LocalIndexes locals;
+		/**
+		 * manifest to record the file in once indexed, or null
+		 */
+		private final Manifest manifest;
+		/**
+		 * changes the file belongs to, or null
+		 */
+		private final Manifest.Changes changes;
 
 		/**
 		 * Constructs new task for processing the text file
 		 *
 		 * @param inputPath   path to use
 		 * @param multithread the multithread instance for indexing
+		 * @param locals      thread-local indexes to add to, or null to add the file
+		 *                    to the multithread instance
+		 */
+		public Task(Path inputPath, ThreadedInvertedIndex multithread, LocalIndexes locals) {
+			this(inputPath, multithread, locals, null, null);
+		}
+
+		/**
+		 * Constructs new task for processing a changed text file and recording it
+		 * in the manifest once indexed
+		 *
+		 * @param inputPath   path to use
+		 * @param multithread the multithread instance for indexing
+		 * @param locals      thread-local indexes to add to, or null to add the file
+		 *                    to the multithread instance
+		 * @param manifest    manifest to record the file in, or null
+		 * @param changes     changes the file belongs to, or null
 		 */
-		public Task(Path inputPath, ThreadedInvertedIndex multithread) {
+		public Task(Path inputPath, ThreadedInvertedIndex multithread, LocalIndexes locals, Manifest manifest,
+				Manifest.Changes changes) {
 			this.inputPath = inputPath;
 			this.multithread = multithread;
+			this.locals = locals;
+			this.manifest = manifest;
+			this.changes = changes;
 		}
 
 		/**
@@ -95,7 +228,14 @@ public class ThreadedTextProcessor {
 			try {
 				InvertedIndex local = new InvertedIndex();
 				TextProcessor.processFile(inputPath, local);
-				multithread.addDistinct(local);
+				if (locals != null) {
+					locals.add(local);
+				} else {
+					multithread.addDistinct(local);
+				}
+				if (manifest != null) {
+					manifest.commit(changes, inputPath);
+				}
 			} catch (IOException e) {
 				throw new UncheckedIOException(e);
 			}
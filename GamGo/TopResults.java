@@ -0,0 +1,118 @@
+package GamGo;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.PriorityQueue;
+
+/**
+ * Collects the best search results in the order of
+ * {@link InvertedIndex.SearchResult#compareTo(InvertedIndex.SearchResult)}.
+ * With a limit of k, the results are kept in a min-heap of at most k entries
+ * whose head is the worst result kept so far, so a new result either replaces
+ * the head or is dropped right away. Selecting the best k of n results then
+ * takes O(n log k) time and O(k) memory instead of sorting all of them.
+ */
+public class TopResults {
+	/**
+	 * limit used to keep every result
+	 */
+	public static final int ALL = Integer.MAX_VALUE;
+	/**
+	 * maximum number of results to keep
+	 */
+	private final int limit;
+	/**
+	 * kept results, with the worst one at the head, or null to keep every result
+	 */
+	private final PriorityQueue<InvertedIndex.SearchResult> heap;
+	/**
+	 * every result, if there is no limit
+	 */
+	private final ArrayList<InvertedIndex.SearchResult> all;
+
+	/**
+	 * initialize new instance
+	 *
+	 * @param limit maximum number of results to keep, or {@link #ALL}
+	 * @throws IllegalArgumentException if the limit is not positive
+	 */
+	public TopResults(int limit) {
+		if (limit < 1) {
+			throw new IllegalArgumentException("Limit must be positive: " + limit);
+		}
+		this.limit = limit;
+		if (limit == ALL) {
+			this.heap = null;
+			this.all = new ArrayList<>();
+		} else {
+			this.heap = new PriorityQueue<>(Math.min(limit, 64), Collections.reverseOrder());
+			this.all = null;
+		}
+	}
+
+	/**
+	 * returns the maximum number of results to keep
+	 *
+	 * @return the limit, or {@link #ALL}
+	 */
+	public int getLimit() {
+		return limit;
+	}
+
+	/**
+	 * adds a result, dropping the worst kept result if there are too many
+	 *
+	 * @param result result to add
+	 */
+	public void add(InvertedIndex.SearchResult result) {
+		if (heap == null) {
+			all.add(result);
+		} else if (heap.size() < limit) {
+			heap.add(result);
+		} else if (result.compareTo(heap.peek()) < 0) {
+			heap.poll();
+			heap.add(result);
+		}
+	}
+
+	/**
+	 * adds every result
+	 *
+	 * @param results results to add
+	 */
+	public void addAll(Collection<InvertedIndex.SearchResult> results) {
+		for (InvertedIndex.SearchResult result : results) {
+			add(result);
+		}
+	}
+
+	/**
+	 * Returns the score a new result must at least reach to be kept. Every result
+	 * is kept until the limit is reached, so there is no threshold before that.
+	 *
+	 * @return the score of the worst kept result, or negative infinity
+	 */
+	public double threshold() {
+		return heap != null && heap.size() >= limit ? heap.peek().getScore() : Double.NEGATIVE_INFINITY;
+	}
+
+	/**
+	 * returns the kept results, best first
+	 *
+	 * @return sorted list of results
+	 */
+	public ArrayList<InvertedIndex.SearchResult> toList() {
+		ArrayList<InvertedIndex.SearchResult> results = heap == null ? all : new ArrayList<>(heap);
+		Collections.sort(results);
+		return results;
+	}
+
+	/**
+	 * to string method
+	 */
+	@Override
+	public String toString() {
+		return "TopResults[limit=" + limit + ", size=" + (heap == null ? all.size() : heap.size()) + "]";
+	}
+}
@@ -6,11 +6,9 @@ import java.net.URISyntaxException;
 import java.net.URL;
 import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
-import opennlp.tools.stemmer.snowball.SnowballStemmer;
-import opennlp.tools.stemmer.snowball.SnowballStemmer.ALGORITHM;
-
 /**
  * web crawl class for crawling web pages from given url
  */
@@ -35,6 +33,10 @@ public class WebCrawler {
 	 * initialize
 	 */
 	private String input;
+	/**
+	 * thread-local indexes, or null to add every page to the multithread instance
+	 */
+	private final LocalIndexes locals;
 
 	/**
 	 * constructor
@@ -45,11 +47,27 @@ public class WebCrawler {
 	 * @param input       initial url
 	 */
 	public WebCrawler(ThreadedInvertedIndex multithread, WorkQueue workqueue, int crawlNumber, String input) {
+		this(multithread, workqueue, crawlNumber, input, false);
+	}
+
+	/**
+	 * constructor
+	 * 
+	 * @param multithread stores crawled data
+	 * @param workqueue   work queue to use
+	 * @param crawlNumber max number of urls
+	 * @param input       initial url
+	 * @param reduce      whether workers keep thread-local indexes that are
+	 *                    combined once the crawl is done
+	 */
+	public WebCrawler(ThreadedInvertedIndex multithread, WorkQueue workqueue, int crawlNumber, String input,
+			boolean reduce) {
 		this.multithread = multithread;
 		this.workqueue = workqueue;
 		this.crawlNumber = crawlNumber;
 		this.visitedURI = new HashSet<>();
 		this.input = input;
+		this.locals = reduce ? new LocalIndexes(multithread.getDocuments()) : null;
 	}
 
 	/**
@@ -62,6 +80,12 @@ public class WebCrawler {
 		visitedURI.add(seed);
 		workqueue.execute(new Task(seed));
 		workqueue.finish();
+		if (locals != null) {
+			IndexSnapshot reduced = locals.reduce(workqueue);
+			if (reduced != null) {
+				multithread.addSegment(reduced);
+			}
+		}
 	}
 
 	/**
@@ -108,13 +132,18 @@ public class WebCrawler {
 	 * @param content textual content of the web
 	 */
 	private void indexContent(URI uri, String content) {
-		ThreadedInvertedIndex index = new ThreadedInvertedIndex();
-		SnowballStemmer stemmer = new SnowballStemmer(ALGORITHM.ENGLISH);
+		InvertedIndex index = new InvertedIndex();
+		StemCache stemmer = StemCache.getShared();
 		int place = 0;
 		for (String word : FileStemmer.parse(content)) {
-			index.addIndex(stemmer.stem(word).toString(), uri.toString(), ++place);
+			index.addIndex(stemmer.stem(word), uri.toString(), ++place);
+		}
+		if (locals != null) {
+			multithread.removeDocuments(List.of(uri.toString()));
+			locals.add(index);
+		} else {
+			multithread.replaceDocuments(index);
 		}
-		multithread.addDistinct(index);
 	}
 
 	/**
@@ -0,0 +1,181 @@
+package GamGo;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * Indexes over a sorted array of terms that find the terms matching a
+ * {@link WildcardPattern} without comparing the pattern with every term. Terms
+ * starting with the prefix of a pattern are found in the trie of the terms,
+ * terms ending with its suffix in a second trie over the reversed terms, and
+ * terms containing its text anywhere through a trigram index, which lists the
+ * IDs of the terms containing every sequence of {@value #GRAM} characters. A
+ * search reads the smallest of these candidate lists and checks each candidate
+ * against the pattern, so it takes time in proportion to the terms matching
+ * the most selective part of the pattern.
+ */
+public class WildcardDictionary {
+	/**
+	 * number of characters of the sequences in the trigram index
+	 */
+	public static final int GRAM = 3;
+	/**
+	 * sorted terms
+	 */
+	private final String[] terms;
+	/**
+	 * trie over the terms
+	 */
+	private final TermDictionary dictionary;
+	/**
+	 * trie over the sorted reversed terms
+	 */
+	private final TermDictionary reversed;
+	/**
+	 * sorted reversed terms
+	 */
+	private final String[] reversedTerms;
+	/**
+	 * sorted IDs of the terms containing each trigram
+	 */
+	private final Map<String, int[]> grams;
+
+	/**
+	 * Builds the reversed trie and the trigram index
+	 *
+	 * @param terms      sorted terms without duplicates
+	 * @param dictionary trie over the terms
+	 */
+	public WildcardDictionary(String[] terms, TermDictionary dictionary) {
+		this.terms = terms;
+		this.dictionary = dictionary;
+		this.reversedTerms = new String[terms.length];
+		for (int term = 0; term < terms.length; term++) {
+			reversedTerms[term] = reverse(terms[term]);
+		}
+		Arrays.sort(reversedTerms);
+		this.reversed = new TermDictionary(reversedTerms);
+		this.grams = grams(terms);
+	}
+
+	/**
+	 * Lists the IDs of the terms containing each trigram, in one pass over the
+	 * terms that appends every term to the growing list of each of its trigrams,
+	 * whose first element holds its size. A term is listed once per trigram,
+	 * however often the trigram occurs in it.
+	 *
+	 * @param terms sorted terms
+	 * @return the trigram index
+	 */
+	private static Map<String, int[]> grams(String[] terms) {
+		Map<String, int[]> lists = new HashMap<>();
+		for (int term = 0; term < terms.length; term++) {
+			for (int start = 0; start + GRAM <= terms[term].length(); start++) {
+				int[] list = lists.computeIfAbsent(terms[term].substring(start, start + GRAM), key -> new int[4]);
+				int size = list[0];
+				if (size > 0 && list[size] == term) {
+					continue;
+				}
+				if (size + 1 == list.length) {
+					list = Arrays.copyOf(list, list.length * 2);
+					lists.put(terms[term].substring(start, start + GRAM), list);
+				}
+				list[size + 1] = term;
+				list[0] = size + 1;
+			}
+		}
+		Map<String, int[]> grams = new HashMap<>();
+		for (Map.Entry<String, int[]> entry : lists.entrySet()) {
+			grams.put(entry.getKey(), Arrays.copyOfRange(entry.getValue(), 1, entry.getValue()[0] + 1));
+		}
+		return grams;
+	}
+
+	/**
+	 * returns the characters of a text in reverse order
+	 *
+	 * @param text the text
+	 * @return the reversed text
+	 */
+	private static String reverse(String text) {
+		return new StringBuilder(text).reverse().toString();
+	}
+
+	/**
+	 * Returns the IDs of the terms matching a pattern. The candidates are the
+	 * terms of the prefix range, of the suffix range, or of the rarest trigram
+	 * of the pattern text, whichever are fewest. Reversed terms are not mapped to
+	 * their IDs in advance, so every match in the suffix range is looked up with a
+	 * binary search, and the range counts as many candidates as that takes steps.
+	 *
+	 * @param pattern the pattern
+	 * @return sorted IDs of the matching terms
+	 */
+	public int[] find(WildcardPattern pattern) {
+		int[] range = pattern.getPrefix().isEmpty() ? new int[] { 0, terms.length }
+				: dictionary.prefixRange(pattern.getPrefix());
+		int[] suffixRange = null;
+		int[] gramIds = null;
+		long best = range[1] - range[0];
+		if (!pattern.getSuffix().isEmpty()) {
+			int[] found = reversed.prefixRange(reverse(pattern.getSuffix()));
+			long cost = (long) (found[1] - found[0]) * (32 - Integer.numberOfLeadingZeros(terms.length));
+			if (cost < best) {
+				suffixRange = found;
+				best = cost;
+			}
+		}
+		for (String literal : pattern.getLiterals()) {
+			for (int start = 0; start + GRAM <= literal.length(); start++) {
+				int[] ids = grams.getOrDefault(literal.substring(start, start + GRAM), new int[0]);
+				if (ids.length < best) {
+					gramIds = ids;
+					best = ids.length;
+				}
+			}
+		}
+		IntStream.Builder found = IntStream.builder();
+		if (gramIds != null) {
+			for (int term : gramIds) {
+				if (pattern.matches(terms[term])) {
+					found.add(term);
+				}
+			}
+			return found.build().toArray();
+		}
+		if (suffixRange != null) {
+			for (int i = suffixRange[0]; i < suffixRange[1]; i++) {
+				String term = reverse(reversedTerms[i]);
+				if (pattern.matches(term)) {
+					found.add(Arrays.binarySearch(terms, term));
+				}
+			}
+			return found.build().sorted().toArray();
+		}
+		for (int term = range[0]; term < range[1]; term++) {
+			if (pattern.matches(terms[term])) {
+				found.add(term);
+			}
+		}
+		return found.build().toArray();
+	}
+
+	/**
+	 * returns the number of distinct trigrams
+	 *
+	 * @return number of trigrams
+	 */
+	public int numGrams() {
+		return grams.size();
+	}
+
+	/**
+	 * to string method
+	 */
+	@Override
+	public String toString() {
+		return "WildcardDictionary[terms=" + terms.length + ", grams=" + grams.size() + "]";
+	}
+}
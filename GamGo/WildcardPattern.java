@@ -0,0 +1,119 @@
+package GamGo;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Pattern that matches terms against literal text and {@value #WILDCARD}
+ * wildcards, where each wildcard stands for any number of characters. The text
+ * before the first wildcard must start the term, the text after the last
+ * wildcard must end it, and the text between wildcards must appear in between,
+ * in order. A pattern without wildcards only matches itself.
+ */
+public class WildcardPattern {
+	/**
+	 * character that stands for any number of characters
+	 */
+	public static final char WILDCARD = '*';
+	/**
+	 * the pattern
+	 */
+	private final String pattern;
+	/**
+	 * literal text before, between and after the wildcards, of which the first
+	 * and last may be empty
+	 */
+	private final String[] parts;
+
+	/**
+	 * initialize new instance
+	 *
+	 * @param pattern the pattern
+	 */
+	public WildcardPattern(String pattern) {
+		this.pattern = pattern;
+		this.parts = pattern.split("\\" + WILDCARD, -1);
+	}
+
+	/**
+	 * checks if a word is a pattern with at least one wildcard
+	 *
+	 * @param word the word
+	 * @return true if the word contains a wildcard
+	 */
+	public static boolean isWildcard(String word) {
+		return word.indexOf(WILDCARD) >= 0;
+	}
+
+	/**
+	 * returns the text every matching term starts with
+	 *
+	 * @return the prefix, which is empty if the pattern starts with a wildcard
+	 */
+	public String getPrefix() {
+		return parts[0];
+	}
+
+	/**
+	 * returns the text every matching term ends with
+	 *
+	 * @return the suffix, which is empty if the pattern ends with a wildcard or
+	 *         has none
+	 */
+	public String getSuffix() {
+		return parts.length > 1 ? parts[parts.length - 1] : "";
+	}
+
+	/**
+	 * returns the literal text every matching term contains
+	 *
+	 * @return the non-empty text before, between and after the wildcards
+	 */
+	public List<String> getLiterals() {
+		List<String> literals = new ArrayList<>();
+		for (String part : parts) {
+			if (!part.isEmpty()) {
+				literals.add(part);
+			}
+		}
+		return literals;
+	}
+
+	/**
+	 * Checks if a term matches the pattern. The text between wildcards is found
+	 * at its first position after the text before it, which is enough when
+	 * wildcards can stand for any text.
+	 *
+	 * @param term the term
+	 * @return true if the term matches
+	 */
+	public boolean matches(String term) {
+		if (parts.length == 1) {
+			return term.equals(pattern);
+		}
+		String prefix = getPrefix();
+		String suffix = getSuffix();
+		if (term.length() < prefix.length() + suffix.length() || !term.startsWith(prefix)
+				|| !term.endsWith(suffix)) {
+			return false;
+		}
+		int from = prefix.length();
+		int end = term.length() - suffix.length();
+		for (int i = 1; i < parts.length - 1; i++) {
+			int found = term.indexOf(parts[i], from);
+			if (found < 0 || found + parts[i].length() > end) {
+				return false;
+			}
+			from = found + parts[i].length();
+		}
+		return true;
+	}
+
+	/**
+	 * to string method
+	 */
+	@Override
+	public String toString() {
+		return pattern;
+	}
+}